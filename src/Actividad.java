@@ -0,0 +1,12 @@
+package lectores_escritores;
+
+/**
+ * Enumeración pública para lo que está haciendo un proceso en un momento
+ * dado. La lee el monitoreo (`Monitor.java`).
+ */
+public enum Actividad {
+    LISTO,
+    COMPUTANDO,
+    ESPERANDO,
+    TERMINADO,
+}
@@ -0,0 +1,409 @@
+package lectores_escritores;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Análisis de la ruta crítica y de las causas de bloqueo a partir del
+ * flujo de eventos (`Evento.java`).
+ *
+ * Se construye el grafo "sucede antes" de la simulación:
+ *    - Los eventos de un proceso se encadenan en el orden del registro.
+ *    - Cuando un proceso que esperaba un recurso lo obtiene después de que
+ *      otro lo liberó, se agrega la arista LIBERAR -> OBTENER (traspaso).
+ *
+ * Calcula:
+ *    - La ruta crítica: se recorre el grafo hacia atrás desde el último
+ *      evento en terminar; en cada OBTENER con traspaso se salta al proceso
+ *      que liberó el recurso. Su duración es el tiempo total de la simulación.
+ *    - Atribución del tiempo bloqueado: mientras un proceso espera un recurso,
+ *      su tiempo se reparte en partes iguales entre los poseedores del recurso
+ *      en ese momento. Así cada retención (de OBTENER a LIBERAR) tiene el
+ *      tiempo de bloqueo que causó, y se sabe cuál conviene acortar.
+ *
+ * Consideraciones:
+ *    - Los recursos son independientes, así que cada uno se analiza en una
+ *      tarea de un `ForkJoinPool`; los eventos de un recurso se ordenan con
+ *      `Arrays.parallelSort`. Con un solo recurso (lo que crea
+ *      `Simulador.java`) solo el ordenamiento es paralelo.
+ *    - Encadenar los eventos de cada proceso y recorrer la ruta crítica son
+ *      pasadas secuenciales: la primera es O(n) sobre el registro y la
+ *      segunda sigue aristas hacia atrás, una tras otra.
+ *    - La atribución se acumula con una integral: en cada intervalo entre
+ *      eventos crece `esperando / poseedores`, y una retención causó la
+ *      diferencia entre su final y su inicio. Cada evento cuesta O(1).
+ *    - El tiempo de espera sin poseedores (p. ej. entre un LIBERAR y el
+ *      OBTENER del siguiente en el mismo ms) se reporta aparte.
+ */
+public class AnalizadorBloqueos {
+    private Evento[] eventos;
+    private int[] anterior;  // evento anterior del mismo proceso, o -1
+    private int[] traspaso;  // LIBERAR que habilitó cada OBTENER, o -1
+
+    private Integer[] idsRecursos;
+    private long[][] clavesRecursos; // (tiempo << 32 | índice), por recurso
+
+    private Vector<Vector<Retencion>> retencionesRecurso;
+    private double[] bloqueadoRecurso, sinPoseedorRecurso;
+
+    public long rutaCritica;
+    public Vector<Segmento> ruta;
+    public Vector<Retencion> retenciones;
+
+    public AnalizadorBloqueos(Vector<Evento> eventos) {
+        this.eventos = eventos.toArray(new Evento[0]);
+        ruta = new Vector<Segmento>();
+        retenciones = new Vector<Retencion>();
+    }
+
+    /**
+     * Ejecuta el análisis.
+     */
+    public void analiza() {
+        int n = eventos.length;
+        anterior = new int[n];
+        traspaso = new int[n];
+        Arrays.fill(traspaso, -1);
+
+        // encadena los eventos de cada proceso y los separa por recurso
+        HashMap<String, Integer> ultimo = new HashMap<String, Integer>();
+        TreeMap<Integer, ArregloLong> porRecurso = new TreeMap<Integer, ArregloLong>();
+        for (int i = 0; i < n; ++i) {
+            Evento e = eventos[i];
+            Integer u = ultimo.put(e.nombreProceso, i);
+            anterior[i] = u != null ? u : -1;
+
+            if (e.recurso >= 0) {
+                ArregloLong a = porRecurso.get(e.recurso);
+                if (a == null) {
+                    a = new ArregloLong();
+                    porRecurso.put(e.recurso, a);
+                }
+                a.agrega(e.tiempoEjecucion << 32 | i);
+            }
+        }
+
+        int m = porRecurso.size();
+        idsRecursos = porRecurso.keySet().toArray(new Integer[0]);
+        clavesRecursos = new long[m][];
+        for (int k = 0; k < m; ++k) {
+            clavesRecursos[k] = porRecurso.get(idsRecursos[k]).arreglo();
+        }
+        retencionesRecurso = new Vector<Vector<Retencion>>();
+        retencionesRecurso.setSize(m);
+        bloqueadoRecurso = new double[m];
+        sinPoseedorRecurso = new double[m];
+
+        ForkJoinPool.commonPool().invoke(new AnalisisRecursos(0, m));
+
+        retenciones.clear();
+        for (int k = 0; k < m; ++k) {
+            retenciones.addAll(retencionesRecurso.elementAt(k));
+        }
+
+        calculaRuta();
+    }
+
+    /**
+     * Recorre los eventos de un recurso en orden de tiempo, atribuyendo el
+     * tiempo de espera a los poseedores y encontrando los traspasos.
+     */
+    private void analizaRecurso(int k) {
+        long[] claves = clavesRecursos[k];
+        Arrays.parallelSort(claves);
+
+        Vector<Retencion> cerradas = new Vector<Retencion>();
+        HashMap<String, ArrayDeque<Retencion>> poseedores = new HashMap<String, ArrayDeque<Retencion>>();
+        HashMap<String, long[]> esperando = new HashMap<String, long[]>(); // {tiempo, posición}
+
+        double integral = 0, sinPoseedor = 0, bloqueado = 0;
+        int nPoseedores = 0;
+        long tAnterior = claves.length > 0 ? claves[0] >>> 32 : 0;
+        int ultimaLiberacion = -1, posLiberacion = -1;
+
+        for (int pos = 0; pos < claves.length; ++pos) {
+            int i = (int) claves[pos];
+            Evento e = eventos[i];
+            long t = e.tiempoEjecucion;
+
+            long dt = t - tAnterior;
+            if (dt > 0 && esperando.size() > 0) {
+                if (nPoseedores > 0) {
+                    integral += (double) dt * esperando.size() / nPoseedores;
+                } else {
+                    sinPoseedor += (double) dt * esperando.size();
+                }
+            }
+            tAnterior = t;
+
+            switch (e.tipo) {
+                case PEDIR:
+                    esperando.put(e.nombreProceso, new long[] { t, pos });
+                    break;
+
+                case OBTENER: {
+                    long[] espera = esperando.remove(e.nombreProceso);
+                    if (espera != null) {
+                        bloqueado += t - espera[0];
+                        // lo habilitó una liberación de otro proceso posterior a su petición
+                        if (posLiberacion > espera[1]
+                            && !eventos[ultimaLiberacion].nombreProceso.equals(e.nombreProceso)) {
+                            traspaso[i] = ultimaLiberacion;
+                        }
+                    }
+
+                    Retencion r = new Retencion(e.nombreProceso, e.recurso, t, integral);
+                    poseedores.computeIfAbsent(e.nombreProceso, p -> new ArrayDeque<Retencion>()).push(r);
+                    nPoseedores++;
+                    break;
+                }
+
+                case LIBERAR: {
+                    ArrayDeque<Retencion> propias = poseedores.get(e.nombreProceso);
+                    if (propias != null && !propias.isEmpty()) {
+                        Retencion r = propias.pop();
+                        r.cierra(t, integral, i);
+                        cerradas.add(r);
+                        nPoseedores--;
+                    }
+                    ultimaLiberacion = i;
+                    posLiberacion = pos;
+                    break;
+                }
+
+                case TIEMPO_AGOTADO: {
+                    long[] espera = esperando.remove(e.nombreProceso);
+                    if (espera != null) {
+                        bloqueado += t - espera[0];
+                    }
+                    break;
+                }
+
+                default:
+                    break;
+            }
+        }
+
+        // retenciones que nunca se liberaron
+        for (ArrayDeque<Retencion> propias : poseedores.values()) {
+            for (Retencion r : propias) {
+                r.cierra(tAnterior, integral, -1);
+                cerradas.add(r);
+            }
+        }
+
+        retencionesRecurso.set(k, cerradas);
+        bloqueadoRecurso[k] = bloqueado;
+        sinPoseedorRecurso[k] = sinPoseedor;
+    }
+
+    /**
+     * Recorre hacia atrás la ruta crítica desde el evento que termina al final.
+     */
+    private void calculaRuta() {
+        ruta.clear();
+        rutaCritica = 0;
+        if (eventos.length == 0) {
+            return;
+        }
+
+        int actual = 0;
+        long fin = Long.MIN_VALUE, inicio = Long.MAX_VALUE;
+        for (int i = 0; i < eventos.length; ++i) {
+            inicio = Math.min(inicio, eventos[i].tiempoEjecucion);
+            if (terminaEn(i) > fin) {
+                fin = terminaEn(i);
+                actual = i;
+            }
+        }
+        rutaCritica = fin - inicio;
+
+        boolean[] enRuta = new boolean[eventos.length];
+        long cola = fin;
+        String primero = eventos[actual].nombreProceso;
+        while (actual >= 0) {
+            Evento e = eventos[actual];
+            primero = e.nombreProceso;
+            enRuta[actual] = true;
+            agregaSegmento(e.nombreProceso, tipoSegmento(e), e.tiempoEjecucion, cola);
+            cola = e.tiempoEjecucion;
+
+            if (e.tipo == TipoEvento.OBTENER && traspaso[actual] >= 0) {
+                Evento l = eventos[traspaso[actual]];
+                agregaSegmento(
+                    e.nombreProceso,
+                    "traspaso de " + l.nombreProceso + " (recurso " + e.recurso + ")",
+                    l.tiempoEjecucion,
+                    cola);
+                cola = l.tiempoEjecucion;
+                actual = traspaso[actual];
+            } else {
+                actual = anterior[actual];
+            }
+        }
+        agregaSegmento(primero, "arranque", inicio, cola);
+        Collections.reverse(ruta);
+
+        for (Retencion r : retenciones) {
+            r.critica = r.liberacion >= 0 && enRuta[r.liberacion];
+        }
+    }
+
+    private void agregaSegmento(String proceso, String tipo, long desde, long hasta) {
+        if (hasta > desde) {
+            ruta.add(new Segmento(proceso, tipo, desde, hasta));
+        }
+    }
+
+    private long terminaEn(int i) {
+        Evento e = eventos[i];
+        return e.tipo == TipoEvento.COMPUTAR
+            ? e.tiempoEjecucion + e.tiempoComputo
+            : e.tiempoEjecucion;
+    }
+
+    /**
+     * Qué hace un proceso desde el evento `e` hasta su siguiente evento.
+     */
+    private static String tipoSegmento(Evento e) {
+        switch (e.tipo) {
+            case COMPUTAR:
+                return e.recursosEnUso > 0 ? "cómputo con recurso" : "cómputo";
+            case PEDIR:
+                return "espera (recurso " + e.recurso + ")";
+            case OBTENER:
+                return "con recurso " + e.recurso;
+            default:
+                return "ejecución";
+        }
+    }
+
+    /**
+     * Imprime la ruta crítica y los `maximo` principales causantes de bloqueo.
+     */
+    public void reporta(int maximo) {
+        System.out.println(String.format("\nRuta crítica: %d ms, %d segmentos", rutaCritica, ruta.size()));
+
+        // tiempo de la ruta por proceso y tipo de segmento
+        TreeMap<String, Long> porProceso = new TreeMap<String, Long>();
+        for (Segmento s : ruta) {
+            porProceso.merge(s.proceso + ": " + s.tipo, s.fin - s.inicio, Long::sum);
+        }
+        Vector<Map.Entry<String, Long>> tramos = new Vector<Map.Entry<String, Long>>(porProceso.entrySet());
+        tramos.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        for (int i = 0; i < Math.min(maximo, tramos.size()); ++i) {
+            System.out.println(String.format("  P(%s) %d ms", tramos.get(i).getKey(), tramos.get(i).getValue()));
+        }
+
+        double total = 0;
+        for (int k = 0; k < idsRecursos.length; ++k) {
+            total += bloqueadoRecurso[k];
+        }
+        System.out.println(String.format("\nTiempo bloqueado total: %.0f ms", total));
+        for (int k = 0; k < idsRecursos.length; ++k) {
+            System.out.println(String.format(
+                "  Recurso %d: %.0f ms (%.0f ms sin poseedor)",
+                idsRecursos[k], bloqueadoRecurso[k], sinPoseedorRecurso[k]));
+        }
+
+        // bloqueo causado por cada poseedor en cada recurso
+        HashMap<String, Double> causado = new HashMap<String, Double>();
+        for (Retencion r : retenciones) {
+            causado.merge("P(" + r.proceso + ") en recurso " + r.recurso, r.bloqueo, Double::sum);
+        }
+        Vector<Map.Entry<String, Double>> causantes = new Vector<Map.Entry<String, Double>>(causado.entrySet());
+        causantes.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        System.out.println("\nBloqueo causado por poseedor:");
+        for (int i = 0; i < Math.min(maximo, causantes.size()); ++i) {
+            System.out.println(String.format("  %s: %.0f ms", causantes.get(i).getKey(), causantes.get(i).getValue()));
+        }
+
+        Vector<Retencion> orden = new Vector<Retencion>(retenciones);
+        orden.sort((a, b) -> Double.compare(b.bloqueo, a.bloqueo));
+        System.out.println("\nRetenciones que más bloquean:");
+        for (int i = 0; i < Math.min(maximo, orden.size()); ++i) {
+            Retencion r = orden.get(i);
+            if (r.bloqueo <= 0) {
+                break;
+            }
+            System.out.println(String.format(
+                "  P(%s) recurso %d [%d, %d] ms: %.0f ms de bloqueo%s",
+                r.proceso, r.recurso, r.inicio, r.fin, r.bloqueo,
+                r.critica ? ", en la ruta crítica" : ""));
+        }
+    }
+
+    /**
+     * Tarea que analiza un rango de recursos.
+     * Se divide a la mitad hasta que queda un solo recurso;
+     * el pool reparte las mitades entre los núcleos.
+     */
+    private class AnalisisRecursos extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private int desde, hasta;
+
+        AnalisisRecursos(int desde, int hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > 1) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(
+                    new AnalisisRecursos(desde, medio),
+                    new AnalisisRecursos(medio, hasta));
+                return;
+            }
+
+            for (int k = desde; k < hasta; ++k) {
+                analizaRecurso(k);
+            }
+        }
+    }
+}
+
+/**
+ * Retención de un recurso por un proceso, de OBTENER a LIBERAR,
+ * con el tiempo de bloqueo que causó a otros procesos.
+ */
+class Retencion {
+    public String proceso;
+    public int recurso;
+    public long inicio, fin;
+    public double bloqueo;
+    public int liberacion = -1; // índice del evento LIBERAR
+    public boolean critica = false;
+
+    private double base; // integral de atribución al obtener
+
+    public Retencion(String proceso, int recurso, long inicio, double base) {
+        this.proceso = proceso;
+        this.recurso = recurso;
+        this.inicio = inicio;
+        this.base = base;
+    }
+
+    public void cierra(long fin, double integral, int liberacion) {
+        this.fin = fin;
+        this.liberacion = liberacion;
+        bloqueo = integral - base;
+    }
+}
+
+/**
+ * Tramo de la ruta crítica: qué hacía `proceso` entre `inicio` y `fin`.
+ */
+class Segmento {
+    public String proceso, tipo;
+    public long inicio, fin;
+
+    public Segmento(String proceso, String tipo, long inicio, long fin) {
+        this.proceso = proceso;
+        this.tipo = tipo;
+        this.inicio = inicio;
+        this.fin = fin;
+    }
+}
@@ -0,0 +1,24 @@
+package lectores_escritores;
+
+/**
+ * Arreglo de `long` que crece según se necesite.
+ */
+class ArregloLong {
+    private long[] datos = new long[64];
+    public int tamano = 0;
+
+    public void agrega(long v) {
+        if (tamano == datos.length) {
+            long[] nuevo = new long[datos.length * 2];
+            System.arraycopy(datos, 0, nuevo, 0, tamano);
+            datos = nuevo;
+        }
+        datos[tamano++] = v;
+    }
+
+    public long[] arreglo() {
+        long[] r = new long[tamano];
+        System.arraycopy(datos, 0, r, 0, tamano);
+        return r;
+    }
+}
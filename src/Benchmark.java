@@ -0,0 +1,531 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.Vector;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Benchmark de punta a punta de la simulación.
+ * Mide cada etapa del camino completo en escenarios generados de
+ * distintos tamaños:
+ *    - lectura: construye los procesos leyendo sus archivos.
+ *    - ejecucion: corre los procesos hasta que terminan (incluye el
+ *      registro de eventos del `Logger`).
+ *    - registro: exporta el flujo de eventos (`ExportadorTraza.java`)
+ *      y calcula sus estadísticas (`Estadisticas.java`).
+ *    - historial: construye el historial de cada semáforo
+ *      (`HistorialSemaforo.java`).
+ *    - dibujo: genera la gráfica (`Graficador.java`).
+ *
+ * Por etapa se registra el tiempo de pared, el pico del heap, la memoria
+ * asignada (y su tasa), el tiempo en GC y los elementos por segundo
+ * (instrucciones en la lectura, eventos en las demás).
+ * La memoria asignada se calcula con el heap usado al inicio y al final
+ * más lo que liberaron los GC de la etapa, así cuenta también lo que
+ * asignaron los hilos de los procesos.
+ *
+ * Los resultados se pueden guardar como base y compararse con una base
+ * anterior; se marca una regresión cuando el tiempo, la memoria asignada
+ * o el pico del heap crecen más que la tolerancia.
+ *
+ * Consideraciones:
+ *    - Cada proceso es un hilo, así que los escenarios grandes necesitan
+ *      un límite de hilos del sistema suficiente. Si no se pueden crear,
+ *      el escenario se reporta como fallido y se continúa con el siguiente.
+ *    - La gráfica tiene una columna por proceso, así que solo se dibujan
+ *      los primeros `maxProcesosDibujo` procesos.
+ *    - La salida de los procesos se descarta mientras se mide.
+ */
+public class Benchmark {
+    private Vector<Escenario> escenarios;
+    private Vector<Medicion> mediciones;
+    private Vector<String> fallidos;
+    private PrintStream consola;
+    private MedidorMemoria medidor;
+
+    private int maxProcesosDibujo = 32;
+    private long umbralMs = 10; // diferencias menores no son regresiones
+    private long umbralBytes = 1 << 20;
+
+    /**
+     * `nombres` es una lista separada por comas de escenarios estándar
+     * a ejecutar; si es null se ejecutan todos.
+     */
+    public Benchmark(String nombres) {
+        escenarios = new Vector<Escenario>();
+        for (Escenario e : estandar()) {
+            if (nombres == null || ("," + nombres + ",").contains("," + e.nombre + ",")) {
+                escenarios.add(e);
+            }
+        }
+        mediciones = new Vector<Medicion>();
+        fallidos = new Vector<String>();
+        consola = System.out;
+        medidor = new MedidorMemoria();
+    }
+
+    /**
+     * Escenarios estándar: de 10 a 100k procesos, con distintas mezclas
+     * de lectores y escritores y cantidades de recursos.
+     */
+    private static Vector<Escenario> estandar() {
+        Vector<Escenario> e = new Vector<Escenario>();
+        e.add(new Escenario("10", 10, 1, 0.8));
+        e.add(new Escenario("1k", 1000, 4, 0.9));
+        e.add(new Escenario("1k-mixto", 1000, 4, 0.5));
+        e.add(new Escenario("10k", 10000, 16, 0.95));
+        e.add(new Escenario("100k", 100000, 64, 0.99));
+        return e;
+    }
+
+    /**
+     * Ejecuta todos los escenarios, precedidos de un escenario pequeño
+     * de calentamiento que no se registra.
+     */
+    public void ejecuta() throws Exception {
+        medidor.registra();
+        File dir = Files.createTempDirectory("benchmark").toFile();
+
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            corre(new Escenario("calentamiento", 10, 1, 0.8), dir);
+            mediciones.clear();
+
+            for (Escenario e : escenarios) {
+                consola.println("Escenario " + e.nombre + "...");
+                corre(e, dir);
+            }
+        } finally {
+            System.setOut(consola);
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * Corre las etapas de un escenario. Si una etapa falla, las siguientes
+     * no se ejecutan.
+     */
+    private void corre(Escenario e, File dir) {
+        Vector<Recurso> recursos = new Vector<Recurso>();
+        Vector<Proceso> procesos = new Vector<Proceso>();
+        Logger logger = new Logger();
+
+        try {
+            Vector<String> archivos = e.genera(dir);
+            int permisos = Math.max(1, (int) (e.procesos * e.fraccionLectores));
+            for (int r = 0; r < e.recursos; ++r) {
+                recursos.add(new Recurso(permisos));
+            }
+
+            mide(e, "lectura", () -> {
+                long instrucciones = 0;
+                for (int i = 0; i < e.procesos; ++i) {
+                    Proceso p = new Proceso(
+                        archivos.elementAt(i % archivos.size()), "P" + i, recursos, logger);
+                    procesos.add(p);
+                    instrucciones += p.instrucciones().size();
+                }
+                return instrucciones;
+            });
+
+            mide(e, "ejecucion", () -> {
+                logger.tiempo();
+                inicia(procesos);
+                return logger.eventos.size();
+            });
+
+            mide(e, "registro", () -> {
+                ExportadorTraza x = new ExportadorTraza(
+                    new BufferedWriter(Writer.nullWriter()), recursos);
+                x.agregaTodos(logger.eventos);
+                x.cierra();
+
+                Estadisticas est = new Estadisticas();
+                est.agregaTodos(logger.eventos);
+                return logger.eventos.size();
+            });
+
+            mide(e, "historial", () -> {
+                for (int r = 0; r < recursos.size(); ++r) {
+                    new HistorialSemaforo(logger.eventos, r, permisos);
+                }
+                return logger.eventos.size();
+            });
+
+            mide(e, "dibujo", () -> {
+                Vector<Proceso> dibujados = new Vector<Proceso>();
+                HashMap<String, Proceso> nombres = new HashMap<String, Proceso>();
+                for (int i = 0; i < Math.min(maxProcesosDibujo, procesos.size()); ++i) {
+                    dibujados.add(procesos.elementAt(i));
+                    nombres.put(procesos.elementAt(i).nombre, procesos.elementAt(i));
+                }
+
+                Vector<Evento> eventos = new Vector<Evento>();
+                for (Evento ev : logger.eventos) {
+                    if (nombres.containsKey(ev.nombreProceso)) {
+                        eventos.add(ev);
+                    }
+                }
+
+                Graficador g = new Graficador(800);
+                g.archivo(new File(dir, "grafica.jpg").getPath());
+                g.grafica(eventos, dibujados, permisos);
+                return eventos.size();
+            });
+        } catch (Throwable t) {
+            fallidos.add(e.nombre + ": " + t);
+            consola.println("    falló: " + t);
+        }
+    }
+
+    /**
+     * Inicia los procesos y espera a que terminen.
+     * Si no se pueden crear todos los hilos, espera a los que sí
+     * iniciaron y lanza el error.
+     */
+    private void inicia(Vector<Proceso> procesos) throws Exception {
+        Throwable error = null;
+        for (Proceso p : procesos) {
+            try {
+                p.start();
+            } catch (OutOfMemoryError e) {
+                error = e;
+                break;
+            }
+        }
+
+        for (Proceso p : procesos) {
+            p.join();
+        }
+
+        if (error != null) {
+            throw new Exception("No se pudieron crear los hilos (" + error.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Ejecuta una etapa y registra su medición.
+     */
+    private void mide(Escenario e, String etapa, Etapa cuerpo) throws Exception {
+        System.gc();
+
+        long gcInicio = medidor.tiempoGC();
+        long usadoInicio = medidor.heapUsado();
+        medidor.reinicia();
+        long inicio = System.nanoTime();
+
+        long elementos = cuerpo.corre();
+
+        long nanos = System.nanoTime() - inicio;
+        medidor.esperaNotificaciones();
+
+        Medicion m = new Medicion(e.nombre, etapa);
+        m.ms = nanos / 1_000_000;
+        m.heapPico = medidor.heapPico();
+        m.asignado = Math.max(0, medidor.heapUsado() - usadoInicio + medidor.liberado());
+        m.gcMs = medidor.tiempoGC() - gcInicio;
+        m.porSegundo = nanos > 0 ? (long) (elementos * 1e9 / nanos) : 0;
+        m.asignadoPorSegundo = nanos > 0 ? (long) (m.asignado * 1e9 / nanos) : 0;
+        mediciones.add(m);
+    }
+
+    /**
+     * Imprime la tabla de mediciones y los escenarios fallidos.
+     */
+    public void reporta() {
+        System.out.println("\nBenchmark:");
+        System.out.println(String.format(
+            "  %-14s %-10s %10s %10s %10s %12s %8s %12s",
+            "escenario", "etapa", "ms", "heap MB", "asig MB", "asig MB/s", "GC ms", "elem/s"));
+        for (Medicion m : mediciones) {
+            System.out.println(String.format(Locale.ROOT,
+                "  %-14s %-10s %10d %10.1f %10.1f %12.1f %8d %12d",
+                m.escenario, m.etapa, m.ms,
+                m.heapPico / 1048576.0, m.asignado / 1048576.0,
+                m.asignadoPorSegundo / 1048576.0, m.gcMs, m.porSegundo));
+        }
+
+        for (String f : fallidos) {
+            System.out.println("  Fallido " + f);
+        }
+    }
+
+    /**
+     * Guarda las mediciones como base en `archivo`.
+     */
+    public void guarda(String archivo) throws IOException {
+        PrintWriter w = new PrintWriter(new FileWriter(archivo));
+        w.println("# escenario etapa ms heapPico asignado gcMs porSegundo");
+        for (Medicion m : mediciones) {
+            w.println(m.linea());
+        }
+        w.close();
+    }
+
+    /**
+     * Compara las mediciones con la base guardada en `archivo`.
+     * `tolerancia` es el crecimiento relativo permitido (0.25 = 25%).
+     * Regresa la cantidad de regresiones encontradas.
+     */
+    public int compara(String archivo, double tolerancia) throws IOException {
+        HashMap<String, Medicion> base = new HashMap<String, Medicion>();
+        Scanner s = new Scanner(new File(archivo));
+        while (s.hasNextLine()) {
+            String l = s.nextLine();
+            if (l.isBlank() || l.startsWith("#")) {
+                continue;
+            }
+            Medicion m = Medicion.lee(l);
+            base.put(m.escenario + " " + m.etapa, m);
+        }
+        s.close();
+
+        System.out.println(String.format(Locale.ROOT,
+            "\nComparación con %s (tolerancia %.0f%%):", archivo, tolerancia * 100));
+
+        int regresiones = 0;
+        for (Medicion m : mediciones) {
+            Medicion b = base.get(m.escenario + " " + m.etapa);
+            if (b == null) {
+                System.out.println("  " + m.escenario + " " + m.etapa + ": sin base");
+                continue;
+            }
+
+            regresiones += comparaValor(m, "ms", m.ms, b.ms, umbralMs, tolerancia);
+            regresiones += comparaValor(m, "asignado", m.asignado, b.asignado, umbralBytes, tolerancia);
+            regresiones += comparaValor(m, "heapPico", m.heapPico, b.heapPico, umbralBytes, tolerancia);
+        }
+
+        System.out.println(regresiones == 0
+            ? "  Sin regresiones."
+            : "  " + regresiones + " regresiones.");
+        return regresiones;
+    }
+
+    /**
+     * Imprime y cuenta una regresión si `actual` crece respecto a `base`
+     * más que la tolerancia y más que `umbral`.
+     */
+    private int comparaValor(Medicion m, String nombre, long actual, long base,
+                             long umbral, double tolerancia) {
+        if (actual - base <= umbral || actual <= base * (1 + tolerancia)) {
+            return 0;
+        }
+        System.out.println(String.format(Locale.ROOT,
+            "  REGRESIÓN %s %s %s: %d -> %d (%+.0f%%)",
+            m.escenario, m.etapa, nombre, base, actual,
+            base > 0 ? (actual - base) * 100.0 / base : 100.0));
+        return 1;
+    }
+
+    /**
+     * Cuerpo de una etapa; regresa la cantidad de elementos procesados.
+     */
+    private interface Etapa {
+        long corre() throws Exception;
+    }
+}
+
+/**
+ * Escenario generado: `procesos` procesos, de los cuales
+ * `fraccionLectores` son lectores, repartidos entre `recursos` recursos.
+ */
+class Escenario {
+    public String nombre;
+    public int procesos, recursos;
+    public double fraccionLectores;
+
+    private static final int VARIANTES = 64;
+
+    public Escenario(String nombre, int procesos, int recursos, double fraccionLectores) {
+        this.nombre = nombre;
+        this.procesos = procesos;
+        this.recursos = recursos;
+        this.fraccionLectores = fraccionLectores;
+    }
+
+    /**
+     * Escribe en `dir` los archivos de programa del escenario y regresa
+     * sus rutas; el proceso i usa el archivo i módulo la cantidad de archivos.
+     * Cada programa pide dos veces un recurso con cómputo antes, durante
+     * y después.
+     */
+    public Vector<String> genera(File dir) throws IOException {
+        int n = Math.min(VARIANTES, procesos);
+        int lectores = (int) Math.round(n * fraccionLectores);
+        Vector<String> archivos = new Vector<String>();
+
+        for (int i = 0; i < n; ++i) {
+            File f = new File(dir, nombre + "-" + i + ".txt");
+            PrintWriter w = new PrintWriter(new FileWriter(f));
+            int r = i % recursos;
+
+            w.println(i < lectores ? "L" : "E");
+            w.println("C 1");
+            w.println("R " + r);
+            w.println("C " + (1 + i % 3));
+            w.println("F " + r);
+            w.println("C 1");
+            w.println("R " + r);
+            w.println("C 1");
+            w.println("F " + r);
+            w.println("H");
+            w.close();
+
+            archivos.add(f.getPath());
+        }
+        return archivos;
+    }
+}
+
+/**
+ * Medición de una etapa de un escenario.
+ * Los tamaños están en bytes.
+ */
+class Medicion {
+    public String escenario, etapa;
+    public long ms, heapPico, asignado, asignadoPorSegundo, gcMs, porSegundo;
+
+    public Medicion(String escenario, String etapa) {
+        this.escenario = escenario;
+        this.etapa = etapa;
+    }
+
+    public String linea() {
+        return String.format("%s %s %d %d %d %d %d",
+            escenario, etapa, ms, heapPico, asignado, gcMs, porSegundo);
+    }
+
+    public static Medicion lee(String linea) {
+        String[] c = linea.trim().split("\\s+");
+        Medicion m = new Medicion(c[0], c[1]);
+        m.ms = Long.parseLong(c[2]);
+        m.heapPico = Long.parseLong(c[3]);
+        m.asignado = Long.parseLong(c[4]);
+        m.gcMs = Long.parseLong(c[5]);
+        m.porSegundo = Long.parseLong(c[6]);
+        return m;
+    }
+}
+
+/**
+ * Lleva la cuenta de la memoria del heap con los MXBeans de la JVM.
+ * Escucha las notificaciones de los GC para sumar lo que liberan.
+ */
+class MedidorMemoria implements NotificationListener {
+    private volatile long desde = 0; // tiempo de la JVM (ms) desde el que se cuentan los GC
+    private long liberado = 0;
+    private long notificados = 0;
+    private long coleccionesInicio = 0;
+
+    /**
+     * Se registra en todos los recolectores.
+     */
+    public void registra() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+    }
+
+    /**
+     * Comienza una medición: reinicia los picos de los pools del heap
+     * y la cuenta de memoria liberada.
+     */
+    public synchronized void reinicia() {
+        for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (p.getType() == MemoryType.HEAP) {
+                p.resetPeakUsage();
+            }
+        }
+        desde = ManagementFactory.getRuntimeMXBean().getUptime();
+        liberado = 0;
+        notificados = 0;
+        coleccionesInicio = colecciones();
+    }
+
+    /**
+     * Espera (hasta un segundo) a que lleguen las notificaciones de los
+     * GC ocurridos desde `reinicia()`; se entregan en otro hilo.
+     */
+    public synchronized void esperaNotificaciones() throws InterruptedException {
+        long limite = System.currentTimeMillis() + 1000;
+        while (notificados < colecciones() - coleccionesInicio
+               && System.currentTimeMillis() < limite) {
+            wait(10);
+        }
+    }
+
+    public synchronized long liberado() {
+        return liberado;
+    }
+
+    public long heapUsado() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Suma de los picos de los pools del heap desde `reinicia()`.
+     */
+    public long heapPico() {
+        long pico = 0;
+        for (MemoryPoolMXBean p : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (p.getType() == MemoryType.HEAP) {
+                pico += p.getPeakUsage().getUsed();
+            }
+        }
+        return pico;
+    }
+
+    public long tiempoGC() {
+        long t = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            t += Math.max(0, gc.getCollectionTime());
+        }
+        return t;
+    }
+
+    private long colecciones() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    public synchronized void handleNotification(Notification n, Object handback) {
+        if (!n.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return;
+        }
+
+        GarbageCollectionNotificationInfo info =
+            GarbageCollectionNotificationInfo.from((CompositeData) n.getUserData());
+        if (info.getGcInfo().getStartTime() < desde) {
+            return;
+        }
+
+        long antes = 0, despues = 0;
+        for (MemoryUsage u : info.getGcInfo().getMemoryUsageBeforeGc().values()) {
+            antes += u.getUsed();
+        }
+        for (MemoryUsage u : info.getGcInfo().getMemoryUsageAfterGc().values()) {
+            despues += u.getUsed();
+        }
+        liberado += Math.max(0, antes - despues);
+        notificados++;
+        notifyAll();
+    }
+}
@@ -0,0 +1,229 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.nio.channels.SocketChannel;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexión de un shard con el servidor de recursos (`ServidorRecursos.java`).
+ * Todos los procesos del shard comparten esta conexión: sus peticiones
+ * se encolan y un hilo escritor las envía en bloques (varias peticiones
+ * pueden estar en vuelo a la vez). Un hilo lector despierta a cada
+ * proceso cuando llega la respuesta a su PIDE.
+ *
+ * Si la conexión falla, todas las peticiones en vuelo y las siguientes
+ * terminan con una excepción en vez de esperar una respuesta que no
+ * va a llegar.
+ */
+public class ClienteRecursos {
+    private SocketChannel canal;
+    private DataInputStream entrada;
+    private DataOutputStream salida;
+
+    private LinkedBlockingQueue<int[]> pendientes;
+    private ConcurrentHashMap<Integer, Espera> esperando;
+    private AtomicInteger siguienteId;
+    private Vector<Evento> eventos;
+    private Thread escritor;
+    private volatile IOException falla = null;
+    private volatile boolean terminando = false; // enviando los eventos
+
+    public long tiempoInicial;
+    public int[] permisos;
+
+    /**
+     * Se conecta a `direccion` y lee el tiempo inicial y los recursos
+     * que ofrece el servidor.
+     */
+    public ClienteRecursos(String direccion) throws IOException {
+        canal = Protocolo.conecta(direccion);
+        entrada = Protocolo.entrada(canal);
+        salida = Protocolo.salida(canal);
+
+        pendientes = new LinkedBlockingQueue<int[]>();
+        esperando = new ConcurrentHashMap<Integer, Espera>();
+        siguienteId = new AtomicInteger(0);
+
+        tiempoInicial = entrada.readLong();
+        permisos = new int[entrada.readInt()];
+        for (int i = 0; i < permisos.length; ++i) {
+            permisos[i] = entrada.readInt();
+        }
+
+        escritor = new Thread(this::escribe);
+        escritor.start();
+
+        Thread lector = new Thread(this::lee);
+        lector.setDaemon(true);
+        lector.start();
+    }
+
+    /**
+     * Pide `cantidad` permisos del recurso `r`.
+     * Bloquea hasta que el servidor los concede.
+     * Lanza una excepción si el servidor no pudo concederlos o se perdió
+     * la conexión.
+     */
+    public void pide(int r, int cantidad) throws IOException, InterruptedException {
+        if (!espera(Protocolo.PIDE, r, cantidad, 0)) {
+            throw new IOException("El servidor no concedió el recurso " + r + ".");
+        }
+    }
+
+    /**
+     * Intenta pedir `cantidad` permisos del recurso `r`; el servidor
+     * espera como máximo `limite` ms.
+     * Regresa verdadero si los concedió.
+     */
+    public boolean intentaPide(int r, int cantidad, long limite)
+    throws IOException, InterruptedException {
+        return espera(Protocolo.INTENTA, r, cantidad, (int) limite);
+    }
+
+    /**
+     * Libera `cantidad` permisos del recurso `r`.
+     * No espera respuesta, pero lanza una excepción si la conexión ya falló.
+     */
+    public void libera(int r, int cantidad) {
+        if (falla != null) {
+            throw new UncheckedIOException(falla.getMessage(), falla);
+        }
+        pendientes.add(new int[] { Protocolo.LIBERA, 0, r, cantidad, 0 });
+    }
+
+    /**
+     * Envía una petición y espera su respuesta.
+     * Regresa verdadero si el servidor la concedió.
+     */
+    private boolean espera(byte op, int r, int cantidad, int limite)
+    throws IOException, InterruptedException {
+        int id = siguienteId.incrementAndGet();
+        Espera e = new Espera();
+        esperando.put(id, e);
+        // si la conexión falló antes de registrarla, `falla()` no la vio
+        if (falla != null) {
+            esperando.remove(id);
+            throw falla;
+        }
+        pendientes.put(new int[] { op, id, r, cantidad, limite });
+        e.listo.await();
+        if (e.fallo) {
+            throw falla;
+        }
+        return e.concedido;
+    }
+
+    /**
+     * Envía los eventos del shard, después de todas las peticiones
+     * pendientes, y cierra la conexión.
+     */
+    public void termina(Vector<Evento> eventos) throws Exception {
+        this.eventos = eventos;
+        terminando = true;
+        pendientes.add(new int[] { Protocolo.EVENTOS });
+        escritor.join();
+        canal.close();
+        if (falla != null) {
+            throw new IOException("No se enviaron los eventos: " + falla.getMessage());
+        }
+    }
+
+    /**
+     * Loop del hilo escritor: toma todas las peticiones acumuladas,
+     * las escribe y hace un solo flush.
+     */
+    private void escribe() {
+        Vector<int[]> bloque = new Vector<int[]>();
+        try {
+            while (true) {
+                bloque.add(pendientes.take());
+                pendientes.drainTo(bloque);
+
+                for (int[] m : bloque) {
+                    if (m[0] == Protocolo.EVENTOS) {
+                        salida.writeByte(Protocolo.EVENTOS);
+                        salida.writeInt(eventos.size());
+                        for (Evento e : eventos) {
+                            e.escribe(salida);
+                        }
+                        salida.flush();
+                        return;
+                    }
+
+                    salida.writeByte(m[0]);
+                    salida.writeInt(m[1]);
+                    salida.writeInt(m[2]);
+                    salida.writeInt(m[3]);
+                    if (m[0] == Protocolo.INTENTA) {
+                        salida.writeInt(m[4]);
+                    }
+                }
+                salida.flush();
+                bloque.clear();
+            }
+        } catch (IOException e) {
+            falla(e);
+        } catch (InterruptedException e) {
+            falla(new IOException("Se interrumpió el envío."));
+        }
+    }
+
+    /**
+     * Loop del hilo lector: despierta al proceso de cada PIDE o INTENTA
+     * respondido.
+     */
+    private void lee() {
+        try {
+            while (true) {
+                byte op = entrada.readByte();
+                int id = entrada.readInt();
+                Espera e = esperando.remove(id);
+                if (e == null || (op != Protocolo.LISTO && op != Protocolo.NEGADO)) {
+                    throw new IOException("Respuesta inesperada del servidor (" + op + ", " + id + ").");
+                }
+                e.concedido = op == Protocolo.LISTO;
+                e.listo.countDown();
+            }
+        } catch (EOFException e) {
+            // al recibir los eventos el servidor cierra la conexión
+            if (!terminando) {
+                falla(new IOException("El servidor cerró la conexión."));
+            }
+        } catch (IOException e) {
+            if (!terminando) {
+                falla(e);
+            }
+        }
+    }
+
+    /**
+     * Marca la conexión como fallida y despierta a todas las peticiones
+     * en vuelo; cada una lanzará la excepción.
+     */
+    private synchronized void falla(IOException e) {
+        if (falla == null) {
+            System.out.println("Error en conexión: " + e.getMessage());
+            falla = e;
+        }
+        for (Integer id : esperando.keySet()) {
+            Espera p = esperando.remove(id);
+            if (p != null) {
+                p.fallo = true;
+                p.listo.countDown();
+            }
+        }
+    }
+}
+
+/**
+ * Petición en vuelo de un proceso del shard.
+ */
+class Espera {
+    public CountDownLatch listo = new CountDownLatch(1);
+    public volatile boolean concedido = false;
+    public volatile boolean fallo = false;
+}
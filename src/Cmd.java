@@ -5,6 +5,8 @@ package lectores_escritores;
  */
 public enum Cmd {
     REQUIRE,
+    TRY_REQUIRE,
+    TIMED_REQUIRE,
     FREE,
     COMPUTE,
     HALT,
@@ -1,18 +1,74 @@
 package lectores_escritores;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Tupla con nombre.
  * Almacena el tipo de comando y un valor.
  * No todos los comandos tienen un valor asociado.
+ * Las peticiones con límite (TRY_REQUIRE, TIMED_REQUIRE) guardan además
+ * su tiempo límite, los reintentos y la espera base entre reintentos (ms),
+ * y su progreso: el intento actual, si está en la espera entre intentos
+ * y los ms que le restan a la fase actual (-1 si no ha empezado).
  *
  * La utilizan los Procesos (`Proceso.java`).
  */
 public class Comando {
     public Cmd tipo;
     public int valor;
+    public int limite, reintentos, espera;
+    public int intento = 0;
+    public boolean enEspera = false;
+    public long resta = -1;
 
     public Comando(Cmd t, int v) {
         tipo = t;
         valor = v;
+        limite = 0;
+        reintentos = 0;
+        espera = 1;
+    }
+
+    public Comando(Cmd t, int v, int limite, int reintentos, int espera) {
+        tipo = t;
+        valor = v;
+        this.limite = limite;
+        this.reintentos = reintentos;
+        this.espera = espera;
+    }
+
+    /**
+     * Escribe el comando en formato binario (`PuntoControl.java`).
+     * Solo las peticiones con límite escriben sus campos adicionales.
+     */
+    public void escribe(DataOutputStream s) throws IOException {
+        s.writeByte(tipo.ordinal());
+        s.writeInt(valor);
+        if (tipo == Cmd.TRY_REQUIRE || tipo == Cmd.TIMED_REQUIRE) {
+            s.writeInt(limite);
+            s.writeInt(reintentos);
+            s.writeInt(espera);
+            s.writeInt(intento);
+            s.writeBoolean(enEspera);
+            s.writeLong(resta);
+        }
+    }
+
+    /**
+     * Lee un comando escrito con `escribe`.
+     */
+    public static Comando lee(DataInputStream s) throws IOException {
+        Comando c = new Comando(Cmd.values()[s.readByte()], s.readInt());
+        if (c.tipo == Cmd.TRY_REQUIRE || c.tipo == Cmd.TIMED_REQUIRE) {
+            c.limite = s.readInt();
+            c.reintentos = s.readInt();
+            c.espera = s.readInt();
+            c.intento = s.readInt();
+            c.enEspera = s.readBoolean();
+            c.resta = s.readLong();
+        }
+        return c;
     }
 }
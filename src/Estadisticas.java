@@ -0,0 +1,176 @@
+package lectores_escritores;
+
+import java.util.TreeMap;
+
+/**
+ * Agregador de estadísticas sobre el flujo de eventos (`Evento.java`).
+ * Los eventos se procesan uno por uno, en una sola pasada, y solo se
+ * guarda un estado pequeño por proceso y por recurso.
+ *
+ * Calcula:
+ *    - Tiempo de cómputo de cada proceso (suma de sus COMPUTE).
+ *    - Tiempo bloqueado de cada proceso (desde que pide un recurso
+ *      hasta que lo obtiene o se le agota el tiempo) y sus tiempos agotados.
+ *    - Utilización de cada recurso (fracción del tiempo total en la que
+ *      al menos un proceso lo tiene).
+ *    - Throughput: procesos terminados y recursos obtenidos por segundo.
+ */
+public class Estadisticas {
+    private TreeMap<String, EstadoProceso> procesos; // por nombre, así el reporte no cambia de orden
+    private TreeMap<Integer, EstadoRecurso> recursos;
+
+    private long inicio = Long.MAX_VALUE, fin = 0;
+    private int terminados = 0, adquisiciones = 0;
+
+    public Estadisticas() {
+        procesos = new TreeMap<String, EstadoProceso>();
+        recursos = new TreeMap<Integer, EstadoRecurso>();
+    }
+
+    /**
+     * Procesa un evento.
+     * Se espera que los eventos de un mismo proceso lleguen en orden.
+     */
+    public void agrega(Evento e) {
+        EstadoProceso p = procesos.get(e.nombreProceso);
+        if (p == null) {
+            p = new EstadoProceso();
+            procesos.put(e.nombreProceso, p);
+        }
+
+        inicio = Math.min(inicio, e.tiempoEjecucion);
+        fin = Math.max(fin, e.tiempoEjecucion);
+
+        switch (e.tipo) {
+            case COMPUTAR:
+                p.computo += e.tiempoComputo;
+                fin = Math.max(fin, e.tiempoEjecucion + e.tiempoComputo);
+                break;
+
+            case TERMINAR:
+                terminados++;
+                break;
+
+            case PEDIR:
+                p.pidioEn = e.tiempoEjecucion;
+                break;
+
+            case OBTENER:
+                if (p.pidioEn >= 0) {
+                    p.bloqueado += e.tiempoEjecucion - p.pidioEn;
+                    p.pidioEn = -1;
+                }
+                adquisiciones++;
+                recurso(e.recurso).obtiene(e.tiempoEjecucion);
+                break;
+
+            case LIBERAR:
+                recurso(e.recurso).libera(e.tiempoEjecucion);
+                break;
+
+            case TIEMPO_AGOTADO:
+                if (p.pidioEn >= 0) {
+                    p.bloqueado += e.tiempoEjecucion - p.pidioEn;
+                    p.pidioEn = -1;
+                }
+                p.tiemposAgotados++;
+                break;
+        }
+    }
+
+    /**
+     * Procesa todos los eventos de un iterable.
+     */
+    public void agregaTodos(Iterable<Evento> eventos) {
+        for (Evento e : eventos) {
+            agrega(e);
+        }
+    }
+
+    /**
+     * Imprime las estadísticas acumuladas.
+     */
+    public void reporta() {
+        long total = fin > inicio ? fin - inicio : 0;
+        double segundos = total / 1000.0;
+
+        System.out.println(String.format("Tiempo total: %d ms", total));
+
+        for (String nombre : procesos.keySet()) {
+            EstadoProceso p = procesos.get(nombre);
+            System.out.println(String.format(
+                "P(%s): cómputo %d ms, bloqueado %d ms, %d tiempos agotados",
+                nombre,
+                p.computo,
+                p.bloqueado,
+                p.tiemposAgotados));
+        }
+
+        for (Integer r : recursos.keySet()) {
+            System.out.println(String.format(
+                "Recurso %d: utilización %.1f%%",
+                r,
+                total > 0 ? 100.0 * recursos.get(r).ocupado(fin) / total : 0.0));
+        }
+
+        if (segundos > 0) {
+            System.out.println(String.format(
+                "Throughput: %.2f procesos/s, %.2f adquisiciones/s",
+                terminados / segundos,
+                adquisiciones / segundos));
+        }
+    }
+
+    private EstadoRecurso recurso(int r) {
+        EstadoRecurso er = recursos.get(r);
+        if (er == null) {
+            er = new EstadoRecurso();
+            recursos.put(r, er);
+        }
+        return er;
+    }
+}
+
+/**
+ * Acumuladores de un proceso.
+ */
+class EstadoProceso {
+    public long computo = 0, bloqueado = 0;
+    public long pidioEn = -1;
+    public int tiemposAgotados = 0;
+}
+
+/**
+ * Acumuladores de un recurso.
+ * Lleva la cuenta de los procesos que lo tienen y del tiempo
+ * en el que ha estado ocupado.
+ */
+class EstadoRecurso {
+    private int poseedores = 0;
+    private long ocupadoDesde = 0, ocupado = 0;
+
+    public void obtiene(long t) {
+        if (poseedores == 0) {
+            ocupadoDesde = t;
+        }
+        poseedores++;
+    }
+
+    public void libera(long t) {
+        if (poseedores == 0) {
+            return; // liberación sin obtención previa
+        }
+        poseedores--;
+        if (poseedores == 0) {
+            ocupado += t - ocupadoDesde;
+        }
+    }
+
+    /**
+     * Tiempo ocupado, contando como ocupado hasta `fin`
+     * si aún hay poseedores.
+     */
+    public long ocupado(long fin) {
+        return poseedores > 0 ? ocupado + (fin - ocupadoDesde) : ocupado;
+    }
+}
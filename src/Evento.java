@@ -1,8 +1,13 @@
 package lectores_escritores;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
- * Clase para almacenar información sobre cuándo un proceso está computando.
- * Esencial para la graficación.
+ * Clase para almacenar información sobre cuándo un proceso está computando,
+ * termina o interactúa con un recurso.
+ * Esencial para la graficación y las estadísticas.
  * Diseñada para interactuar con `Logger.java`.
  */
 public class Evento {
@@ -10,6 +15,7 @@ public class Evento {
     public TipoEvento tipo;
     public long tiempoEjecucion, tiempoComputo;
     public int recursosEnUso;
+    public int recurso, permisos;
 
     /**
      * Constructor cuando se trata de un proceso computando.
@@ -24,6 +30,7 @@ public class Evento {
         this.recursosEnUso = recursosEnUso;
         this.tiempoEjecucion = tiempoEjecucion;
         this.tiempoComputo = tiempoComputo;
+        this.recurso = -1;
         this.tipo = TipoEvento.COMPUTAR;
     }
 
@@ -37,7 +44,57 @@ public class Evento {
         nombreProceso = nombre;
         this.recursosEnUso = -1;
         this.tiempoComputo = -1;
+        this.recurso = -1;
         this.tiempoEjecucion = tiempoEjecucion;
         this.tipo = TipoEvento.TERMINAR;
     }
+
+    /**
+     * Constructor cuando se trata de un proceso pidiendo, obteniendo
+     * o liberando un recurso.
+     * `permisos` es la cantidad de permisos del semáforo involucrados.
+     */
+    public Evento(
+        String nombre,
+        TipoEvento tipo,
+        int recurso,
+        int permisos,
+        long tiempoEjecucion
+    ) {
+        nombreProceso = nombre;
+        this.recursosEnUso = -1;
+        this.tiempoComputo = -1;
+        this.recurso = recurso;
+        this.permisos = permisos;
+        this.tiempoEjecucion = tiempoEjecucion;
+        this.tipo = tipo;
+    }
+
+    /**
+     * Escribe el evento en formato binario.
+     * Se usa para enviar los eventos de un shard al servidor (`Protocolo.java`).
+     */
+    public void escribe(DataOutputStream s) throws IOException {
+        s.writeUTF(nombreProceso);
+        s.writeByte(tipo.ordinal());
+        s.writeLong(tiempoEjecucion);
+        s.writeLong(tiempoComputo);
+        s.writeInt(recursosEnUso);
+        s.writeInt(recurso);
+        s.writeInt(permisos);
+    }
+
+    /**
+     * Lee un evento escrito con `escribe`.
+     */
+    public static Evento lee(DataInputStream s) throws IOException {
+        Evento e = new Evento(s.readUTF(), 0);
+        e.tipo = TipoEvento.values()[s.readByte()];
+        e.tiempoEjecucion = s.readLong();
+        e.tiempoComputo = s.readLong();
+        e.recursosEnUso = s.readInt();
+        e.recurso = s.readInt();
+        e.permisos = s.readInt();
+        return e;
+    }
 }
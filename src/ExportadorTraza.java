@@ -0,0 +1,177 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * Exporta el flujo de eventos (`Evento.java`) en el formato Trace Event
+ * de Chrome (JSON), que abren chrome://tracing y ui.perfetto.dev.
+ *
+ * Cada evento se escribe en cuanto se procesa, en una sola pasada; solo
+ * se guarda un estado pequeño por proceso y por recurso, así que la
+ * memoria no crece con la cantidad de eventos. Los eventos deben llegar
+ * en orden de tiempo para que el contador del semáforo sea correcto;
+ * `agregaTodos` los ordena antes (solo ordena referencias).
+ *
+ * Se genera:
+ *    - Un track (hilo) por proceso.
+ *    - Rebanadas de cómputo (COMPUTAR) y de espera (PEDIR hasta OBTENER
+ *      o TIEMPO_AGOTADO) en el track del proceso.
+ *    - Secciones críticas (OBTENER hasta LIBERAR) como eventos asíncronos,
+ *      porque un proceso puede liberar recursos en cualquier orden. Cada
+ *      OBTENER lleva su propio id, así dos retenciones del mismo recurso
+ *      por el mismo proceso no se emparejan mal; un LIBERAR cierra la
+ *      retención más reciente de ese proceso y recurso.
+ *    - Un contador por recurso con el valor de su semáforo.
+ */
+public class ExportadorTraza {
+    private Writer salida;
+    private HashMap<String, Integer> hilos;
+    private HashMap<String, ArrayDeque<Integer>> abiertas; // ids por "tid.recurso"
+    private int secuencia = 0;
+    private int[] valores;
+    private boolean primero = true;
+
+    /**
+     * Escribe el encabezado del archivo.
+     * `recursos` da el valor inicial de cada semáforo.
+     */
+    public ExportadorTraza(Writer salida, Vector<Recurso> recursos) throws IOException {
+        this.salida = salida;
+        hilos = new HashMap<String, Integer>();
+        abiertas = new HashMap<String, ArrayDeque<Integer>>();
+        valores = new int[recursos.size()];
+        for (int r = 0; r < valores.length; ++r) {
+            valores[r] = recursos.elementAt(r).t;
+        }
+
+        salida.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        for (int r = 0; r < valores.length; ++r) {
+            contador(r, 0);
+        }
+    }
+
+    /**
+     * Escribe los registros de traza que corresponden a un evento.
+     * Se espera que los eventos lleguen en orden de tiempo.
+     */
+    public void agrega(Evento e) throws IOException {
+        int tid = hilo(e.nombreProceso);
+        long ts = e.tiempoEjecucion * 1000; // el formato usa microsegundos
+
+        switch (e.tipo) {
+            case COMPUTAR:
+                escribe(String.format(
+                    "{\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"dur\":%d,\"name\":\"%s\",\"cat\":\"computo\"}",
+                    tid, ts, e.tiempoComputo * 1000,
+                    e.recursosEnUso > 0 ? "Computando con recurso" : "Computando"));
+                break;
+
+            case TERMINAR:
+                escribe(String.format(
+                    "{\"ph\":\"i\",\"s\":\"t\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"name\":\"Terminado\"}",
+                    tid, ts));
+                break;
+
+            case PEDIR:
+                escribe(String.format(
+                    "{\"ph\":\"B\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"name\":\"Esperando recurso %d\",\"cat\":\"espera\"}",
+                    tid, ts, e.recurso));
+                break;
+
+            case OBTENER: {
+                int id = ++secuencia;
+                abiertas.computeIfAbsent(tid + "." + e.recurso, k -> new ArrayDeque<Integer>()).push(id);
+                escribe(String.format(
+                    "{\"ph\":\"E\",\"pid\":1,\"tid\":%d,\"ts\":%d}",
+                    tid, ts));
+                escribe(String.format(
+                    "{\"ph\":\"b\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"id\":\"%d.%d.%d\",\"name\":\"Recurso %d\",\"cat\":\"critica\"}",
+                    tid, ts, tid, e.recurso, id, e.recurso));
+                valores[e.recurso] -= e.permisos;
+                contador(e.recurso, ts);
+                break;
+            }
+
+            case LIBERAR: {
+                ArrayDeque<Integer> propias = abiertas.get(tid + "." + e.recurso);
+                int id = propias != null && !propias.isEmpty() ? propias.pop() : 0; // 0: sin OBTENER
+                escribe(String.format(
+                    "{\"ph\":\"e\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"id\":\"%d.%d.%d\",\"name\":\"Recurso %d\",\"cat\":\"critica\"}",
+                    tid, ts, tid, e.recurso, id, e.recurso));
+                valores[e.recurso] += e.permisos;
+                contador(e.recurso, ts);
+                break;
+            }
+
+            case TIEMPO_AGOTADO:
+                escribe(String.format(
+                    "{\"ph\":\"E\",\"pid\":1,\"tid\":%d,\"ts\":%d,\"args\":{\"tiempoAgotado\":true}}",
+                    tid, ts));
+                break;
+        }
+    }
+
+    /**
+     * Exporta todos los eventos de un iterable, en orden de tiempo.
+     * El ordenamiento es estable, como en `HistorialSemaforo.java`: a tiempos
+     * iguales se respeta el orden del registro.
+     */
+    public void agregaTodos(Iterable<Evento> eventos) throws IOException {
+        ArrayList<Evento> orden = new ArrayList<Evento>();
+        for (Evento e : eventos) {
+            orden.add(e);
+        }
+        Collections.sort(orden, Comparator.comparingLong((Evento e) -> e.tiempoEjecucion));
+
+        for (Evento e : orden) {
+            agrega(e);
+        }
+    }
+
+    /**
+     * Cierra el arreglo de eventos y el archivo.
+     */
+    public void cierra() throws IOException {
+        salida.write("\n]}\n");
+        salida.close();
+    }
+
+    /**
+     * Regresa el tid del proceso; la primera vez escribe su nombre.
+     */
+    private int hilo(String nombre) throws IOException {
+        Integer tid = hilos.get(nombre);
+        if (tid == null) {
+            tid = hilos.size() + 1;
+            hilos.put(nombre, tid);
+            escribe(String.format(
+                "{\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"name\":\"thread_name\",\"args\":{\"name\":\"%s\"}}",
+                tid, escapa(nombre)));
+        }
+        return tid;
+    }
+
+    private void contador(int r, long ts) throws IOException {
+        escribe(String.format(
+            "{\"ph\":\"C\",\"pid\":1,\"ts\":%d,\"name\":\"Semáforo %d\",\"args\":{\"valor\":%d}}",
+            ts, r, valores[r]));
+    }
+
+    private void escribe(String registro) throws IOException {
+        if (!primero) {
+            salida.write(",\n");
+        }
+        primero = false;
+        salida.write(registro);
+    }
+
+    private static String escapa(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -5,7 +5,6 @@ import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
 import java.io.File;
 import java.util.Vector;
-import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.lang.Math;
 
@@ -53,6 +52,15 @@ import java.lang.Math;
  * 3. Otros.
  *     - textoY: posición vertical sobre la cual se dibujan los nombres de las columnas.
  *     - maxTiempo: tiempo final de la simulación. Utilizado durante el escalado.
+ *
+ * 4. Nivel de detalle.
+ *    Cuando hay más eventos que píxeles, las flechas se enciman. En ese caso
+ *    se dibuja un resumen por fila de píxeles (ver `dibujaAgregado()`).
+ *     - modoExacto: fuerza un modo; si es null se elige automáticamente.
+ *     - minPxPorFlecha: altura mínima promedio por flecha para usar el modo exacto.
+ *     - pxPorEtiqueta: separación entre etiquetas del semáforo en el modo agregado.
+ *     - anchoBarraBloqueo: ancho de la barra de bloqueo cuando una fila
+ *                          está bloqueada todo el tiempo.
  */
 public class Graficador {
     private HashMap<String, Vector<Flecha>> flechas;
@@ -83,6 +91,13 @@ public class Graficador {
 
     private long maxTiempo = 0;
 
+    private Boolean modoExacto = null; // null: se decide por la cantidad de eventos
+    private String archivo = "grafica.jpg";
+    private int minPxPorFlecha = 15;
+    private int pxPorEtiqueta = 40;
+    private int anchoBarraBloqueo = 20;
+    private Color colorBloqueo = new Color(220, 90, 90);
+
     /**
      * Construye un Graficador, se le pasa la altura deseada del archivo de salida.
      * Es recomendable una altura superior a 500px;
@@ -94,11 +109,17 @@ public class Graficador {
     }
 
     /**
-     * Crea una gráfica "grafica.jpg" a partir de una serie de eventos generados
-     * en el simulador.
+     * Crea una gráfica "grafica.jpg" (o el archivo indicado con `archivo()`)
+     * a partir de una serie de eventos generados en el simulador.
      */
     public void grafica(Vector<Evento> eventos, Vector<Proceso> procesos, int permisos) {
-        creaFlechas(eventos, procesos);
+        boolean exacto = modoExacto != null ? modoExacto : cabeExacto(eventos);
+        if (exacto) {
+            creaFlechas(eventos, procesos);
+        } else {
+            calculaMaxTiempo(eventos);
+        }
+        HistorialSemaforo semaforo = new HistorialSemaforo(eventos, 0, permisos);
 
         // calcula el ancho de la columna donde se muestra la lista de procesos esperando
         anchoRecursosEnEspera = (procesos.size() * anchoRecursoEnEspera);
@@ -120,6 +141,101 @@ public class Graficador {
         g.fillRect(0, 0, anchura, altura);
 
         g.setFont(new Font("Purisa", Font.PLAIN, 15));
+
+        int x = exacto
+            ? dibujaExacto(procesos, semaforo, g)
+            : dibujaAgregado(eventos, procesos, semaforo, g);
+
+        g.setColor(Color.black);
+        g.drawString(
+                "Valor Semáforo",
+                anchoRecursosEnEspera + (int) (anchoValorRecurso / 2.9),
+                textoY);
+        g.drawString(
+                "Procesos en espera",
+                (int) (anchoRecursosEnEspera / 3.4),
+                textoY);
+
+        // dibujar guía
+        x += 2 * margenX;
+        int y = altura / 8;
+
+        int ax = x - 2 * amplitudFlecha;
+        int ay = y - margenFlechaGuia;
+        int bx = x + anchoGuia - 2 * margenX + amplitudFlecha / 2;
+        int by = y + (3 * (margenFlechaGuia + altoFlechaGuia)) + margenFlechaGuia;
+
+        g.setColor(Color.gray);
+        g.setStroke(new BasicStroke(2.0f));
+
+        g.drawLine(ax, ay, ax, by);
+        g.drawLine(ax, by, bx, by);
+        g.drawLine(bx, by, bx, ay);
+        g.drawLine(bx, ay, ax, ay);
+        g.setStroke(new BasicStroke());
+
+        g.drawString("Guia", x + 3 * margenFlechaGuia, y);
+
+        y += margenFlechaGuia;
+        flecha(x, y, y + altoFlechaGuia, g);
+        g.drawString("Ejecución normal", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+
+        y += margenFlechaGuia + altoFlechaGuia;
+        flechaPunteada(x, y, y + altoFlechaGuia, g);
+        g.drawString("En espera", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+
+        y += margenFlechaGuia + altoFlechaGuia;
+        flechaCritica(x, y, y + altoFlechaGuia, g);
+        g.drawString("Ejecución con recurso", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+
+        g.dispose();
+
+        // guardar archivo
+        File f = new File(archivo);
+        try {
+            ImageIO.write(img, "jpg", f);
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fuerza el modo de dibujo: exacto (una flecha por evento) o agregado
+     * (un resumen por fila de píxeles). Si no se llama, se elige según
+     * la cantidad de eventos.
+     */
+    public void modoExacto(boolean exacto) {
+        modoExacto = exacto;
+    }
+
+    /**
+     * Cambia el nombre del archivo de salida.
+     */
+    public void archivo(String nombre) {
+        archivo = nombre;
+    }
+
+    /**
+     * Decide si las flechas caben sin encimarse: el proceso con más
+     * eventos de cómputo debe tener al menos `minPxPorFlecha` px por flecha.
+     */
+    private boolean cabeExacto(Vector<Evento> eventos) {
+        HashMap<String, Integer> computos = new HashMap<String, Integer>();
+        int max = 0;
+        for (Evento e : eventos) {
+            if (e.tipo == TipoEvento.COMPUTAR) {
+                int n = computos.merge(e.nombreProceso, 1, Integer::sum);
+                max = Math.max(max, n);
+            }
+        }
+        return max * minPxPorFlecha <= altura - margenYTop - margenYBottom;
+    }
+
+    /**
+     * Dibuja las lineas horizontales, sus datos y una flecha por evento.
+     * Regresa la posición horizontal donde termina la última columna.
+     */
+    private int dibujaExacto(Vector<Proceso> procesos, HistorialSemaforo semaforo, Graphics2D g) {
         // dibujar lineas horizontales y sus datos
         for (Linea l : lineas) {
 
@@ -127,7 +243,7 @@ public class Graficador {
             g.setColor(Color.lightGray);
             lineaPunteadaH(margenX, anchura - anchoGuia - margenX, escala(l.altura), g);
 
-            l.obtenInfo(permisos);
+            l.obtenInfo(semaforo);
             // dibuja el valor del semáforo
             g.drawString(
                     String.format("%d", l.valSem),
@@ -142,16 +258,6 @@ public class Graficador {
                     escala(l.altura - 1));
         }
 
-        g.setColor(Color.black);
-        g.drawString(
-                "Valor Semáforo",
-                anchoRecursosEnEspera + (int) (anchoValorRecurso / 2.9),
-                textoY);
-        g.drawString(
-                "Procesos en espera",
-                (int) (anchoRecursosEnEspera / 3.4),
-                textoY);
-
         // dibujar flechas
         int x = anchoRecursosEnEspera + anchoValorRecurso;
         g.setColor(Color.black);
@@ -161,7 +267,7 @@ public class Graficador {
 
             g.drawString(
                     k + (procesos.stream()
-                            .filter(p -> p.nombre == k)
+                            .filter(p -> p.nombre.equals(k))
                             .findFirst()
                             .get().tipo == TipoProceso.ESCRITOR ? " (E)" : " (L)"),
                     x - 7,
@@ -183,46 +289,120 @@ public class Graficador {
             x += anchoColProceso / 2;
         }
 
-        // dibujar guía
-        x += 2 * margenX;
-        int y = altura / 8;
+        return x;
+    }
 
-        int ax = x - 2 * amplitudFlecha;
-        int ay = y - margenFlechaGuia;
-        int bx = x + anchoGuia - 2 * margenX + amplitudFlecha / 2;
-        int by = y + (3 * (margenFlechaGuia + altoFlechaGuia)) + margenFlechaGuia;
+    /**
+     * Dibuja un resumen por fila de píxeles para cada proceso, en vez de
+     * una flecha por evento. Cada fila muestra el estado dominante con el
+     * mismo estilo que las flechas, una barra roja a la izquierda con la
+     * fracción del tiempo bloqueado (de PEDIR a OBTENER) y un punto a la
+     * derecha cuando hubo varias transiciones en la fila.
+     *
+     * Los eventos se recorren una sola vez y el resto del trabajo depende
+     * solo del tamaño de la imagen.
+     * Regresa la posición horizontal donde termina la última columna.
+     */
+    private int dibujaAgregado(
+        Vector<Evento> eventos,
+        Vector<Proceso> procesos,
+        HistorialSemaforo semaforo,
+        Graphics2D g
+    ) {
+        int filas = altura - margenYTop - margenYBottom;
+        double msPorFila = Math.max(maxTiempo, 1) / (double) filas;
+
+        HashMap<String, FilasProceso> columnas = new HashMap<String, FilasProceso>();
+        for (Proceso p : procesos) {
+            columnas.put(p.nombre, new FilasProceso(filas, msPorFila));
+        }
 
-        g.setColor(Color.gray);
-        g.setStroke(new BasicStroke(2.0f));
+        for (Evento e : eventos) {
+            FilasProceso c = columnas.get(e.nombreProceso);
+            if (c != null) {
+                c.agrega(e);
+            }
+        }
 
-        g.drawLine(ax, ay, ax, by);
-        g.drawLine(ax, by, bx, by);
-        g.drawLine(bx, by, bx, ay);
-        g.drawLine(bx, ay, ax, ay);
-        g.setStroke(new BasicStroke());
+        // valor del semáforo y procesos esperando, cada `pxPorEtiqueta` px
+        for (int f = pxPorEtiqueta; f < filas; f += pxPorEtiqueta) {
+            int y = margenYTop + f;
+            long t = (long) (f * msPorFila);
 
-        g.drawString("Guia", x + 3 * margenFlechaGuia, y);
+            g.setColor(Color.lightGray);
+            lineaPunteadaH(margenX, anchura - anchoGuia - margenX, y, g);
+            g.drawString(
+                    String.format("%d", semaforo.valorEn(t)),
+                    anchoRecursosEnEspera + (int) (anchoValorRecurso / 1.5),
+                    y - 1);
+            g.setColor(Color.gray);
+            g.drawString(
+                    semaforo.esperandoEn(t),
+                    margenX + minAnchoRecursosEnEspera / 5,
+                    y - 1);
+        }
 
-        y += margenFlechaGuia;
-        flecha(x, y, y + altoFlechaGuia, g);
-        g.drawString("Ejecución normal", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+        int x = anchoRecursosEnEspera + anchoValorRecurso;
 
-        y += margenFlechaGuia + altoFlechaGuia;
-        flechaPunteada(x, y, y + altoFlechaGuia, g);
-        g.drawString("En espera", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+        for (Proceso p : procesos) {
+            x += anchoColProceso / 2;
+            FilasProceso c = columnas.get(p.nombre);
 
-        y += margenFlechaGuia + altoFlechaGuia;
-        flechaCritica(x, y, y + altoFlechaGuia, g);
-        g.drawString("Ejecución con recurso", x + margenFlechaGuia, y + altoFlechaGuia / 2);
+            g.setColor(Color.black);
+            g.drawString(
+                    p.nombre + (p.tipo == TipoProceso.ESCRITOR ? " (E)" : " (L)"),
+                    x - 7,
+                    textoY);
 
-        g.dispose();
+            for (int f = 0; f < filas; ++f) {
+                int y = margenYTop + f;
+                switch (c.dominante(f)) {
+                    case NORMAL:
+                        g.setColor(Color.black);
+                        g.fillRect(x, y, 1, 1);
+                        break;
+                    case CRITICA:
+                        g.setColor(Color.black);
+                        g.fillRect(x - 1, y, 4, 1);
+                        break;
+                    case PUNTEADA:
+                        if ((f / pxPerIntervalo) % 2 == 0) {
+                            g.setColor(Color.black);
+                            g.fillRect(x, y, 1, 1);
+                        }
+                        break;
+                    case NINGUNA:
+                        break;
+                }
 
-        // guardar archivo
-        File f = new File("grafica.jpg");
-        try {
-            ImageIO.write(img, "jpg", f);
-        } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+                int bloqueado = Math.round(c.bloqueado(f) * anchoBarraBloqueo);
+                if (bloqueado > 0) {
+                    g.setColor(colorBloqueo);
+                    g.fillRect(x - 6 - bloqueado, y, bloqueado, 1);
+                }
+
+                int transiciones = c.transiciones[f];
+                if (transiciones > 1) {
+                    int gris = Math.max(0, 200 - 20 * transiciones);
+                    g.setColor(new Color(gris, gris, gris));
+                    g.fillRect(x + 6, y, 2, 1);
+                }
+            }
+            x += anchoColProceso / 2;
+        }
+
+        return x;
+    }
+
+    /**
+     * Calcula `maxTiempo` sin crear flechas (modo agregado).
+     */
+    private void calculaMaxTiempo(Vector<Evento> eventos) {
+        for (Evento e : eventos) {
+            long fin = e.tipo == TipoEvento.COMPUTAR
+                ? e.tiempoEjecucion + e.tiempoComputo
+                : e.tiempoEjecucion;
+            maxTiempo = Math.max(maxTiempo, fin);
         }
     }
 
@@ -235,6 +415,11 @@ public class Graficador {
     private void creaFlechas(Vector<Evento> eventos, Vector<Proceso> procesos) {
         // agrega flechas existentes
         for (Evento e : eventos) {
+            // las flechas solo se construyen con eventos de cómputo y término
+            if (e.tipo != TipoEvento.COMPUTAR && e.tipo != TipoEvento.TERMINAR) {
+                continue;
+            }
+
             if (flechas.get(e.nombreProceso) == null) {
                 flechas.put(e.nombreProceso, new Vector<Flecha>());
             }
@@ -256,7 +441,7 @@ public class Graficador {
                         e.tiempoEjecucion,
                         tiempoFinal,
                         e.recursosEnUso == 0 ? TipoFlecha.NORMAL : TipoFlecha.CRITICA,
-                        procesos.stream().filter(p -> e.nombreProceso == p.nombre).findFirst().get());
+                        procesos.stream().filter(p -> e.nombreProceso.equals(p.nombre)).findFirst().get());
 
                 flechas.get(e.nombreProceso).add(f);
                 lineas.stream().filter(l -> l.altura == tiempoFinal).findAny().get().flechas.add(f);
@@ -397,7 +582,8 @@ public class Graficador {
 enum TipoFlecha {
     NORMAL,
     PUNTEADA,
-    CRITICA
+    CRITICA,
+    NINGUNA // solo en el modo agregado: fila sin actividad
 }
 
 /**
@@ -422,13 +608,13 @@ class Flecha {
 
 /**
  * Clase que lleva el control de la gráfica.
- * Se usa para agrupar flechas y hacer el cálculo del
- * valor del semáforo `valSem` así como la lista de
- * procesos en espera.
+ * Se usa para agrupar flechas y mostrar el valor del semáforo
+ * `valSem` así como la lista de procesos en espera,
+ * ambos tomados de `HistorialSemaforo.java`.
  */
 class Linea {
     public Vector<Flecha> flechas;
-    public Vector<String> procesosEsperando;
+    public String procesosEsperando;
     public long altura;
     public int valSem = 0;
 
@@ -438,7 +624,7 @@ class Linea {
      */
     public Linea(long alt) {
         flechas = new Vector<Flecha>();
-        procesosEsperando = new Vector<String>();
+        procesosEsperando = "";
         altura = alt;
     }
 
@@ -464,56 +650,127 @@ class Linea {
     }
 
     /**
-     * Calcula el valor del semáforo y determina la lista
-     * de procesos esperando correspondiente a la linea.
+     * Obtiene el valor del semáforo y la lista de procesos esperando
+     * correspondientes a la linea a partir del historial del recurso.
+     * Se consulta el ms anterior a la linea, que es el intervalo
+     * sobre el cual se dibujan las etiquetas.
      */
-    public void obtenInfo(int permisos) {
-        boolean criticaEscritor = false;
-        int criticasLector = 0,
-            punteadasLector = 0,
-            punteadasEscritor = 0;
-
-        for (Flecha f : flechas) {
-            if (f.tipoFlecha == TipoFlecha.CRITICA) {
-                if (f.padre.tipo == TipoProceso.ESCRITOR) {
-                    criticaEscritor = true;
-                } else {
-                    criticasLector++;
+    public void obtenInfo(HistorialSemaforo semaforo) {
+        valSem = semaforo.valorEn(altura - 1);
+        procesosEsperando = semaforo.esperandoEn(altura - 1);
+    }
+
+    /**
+     * Regresa una cadena con los nombres de los procesos en espera
+     * separados por comas y espacios:
+     *
+     * "A1, A2, A3"
+     */
+    public String esperando() {
+        return procesosEsperando;
+    }
+}
+
+/**
+ * Acumulador de una columna en el modo agregado.
+ * Por cada fila de píxeles guarda cuánto de la fila (en fracción de fila)
+ * pasó el proceso computando, computando con recurso, entre cómputos y
+ * bloqueado esperando un recurso, además del número de eventos.
+ * Solo depende del número de filas, no del número de eventos.
+ */
+class FilasProceso {
+    private static final int NORMAL = 0, CRITICA = 1, ESPERA = 2, BLOQUEADO = 3;
+
+    private float[] acumulado;
+    private double msPorFila;
+    private int filas;
+    private long finComputo = -1, pidioEn = -1;
+
+    public int[] transiciones;
+
+    public FilasProceso(int filas, double msPorFila) {
+        this.filas = filas;
+        this.msPorFila = msPorFila;
+        acumulado = new float[filas * 4];
+        transiciones = new int[filas];
+    }
+
+    /**
+     * Procesa un evento del proceso.
+     * Se espera que lleguen en el orden en que el proceso los generó.
+     */
+    public void agrega(Evento e) {
+        transiciones[fila(e.tiempoEjecucion)]++;
+
+        switch (e.tipo) {
+            case COMPUTAR:
+                if (finComputo >= 0 && e.tiempoEjecucion > finComputo) {
+                    acumula(ESPERA, finComputo, e.tiempoEjecucion);
                 }
-            } else if (f.tipoFlecha == TipoFlecha.PUNTEADA) {
-                if (f.padre.tipo == TipoProceso.ESCRITOR) {
-                    punteadasEscritor++;
-                } else {
-                    punteadasLector++;
+                acumula(
+                    e.recursosEnUso == 0 ? NORMAL : CRITICA,
+                    e.tiempoEjecucion,
+                    e.tiempoEjecucion + e.tiempoComputo);
+                finComputo = e.tiempoEjecucion + e.tiempoComputo;
+                break;
+
+            case PEDIR:
+                pidioEn = e.tiempoEjecucion;
+                break;
+
+            case OBTENER:
+            case TIEMPO_AGOTADO:
+                if (pidioEn >= 0) {
+                    acumula(BLOQUEADO, pidioEn, e.tiempoEjecucion);
+                    pidioEn = -1;
                 }
-                procesosEsperando.add(f.padre.nombre);
-            }
-        }
-
-        int p = permisos;
+                break;
 
-        if (criticaEscritor) {
-            p = 0;
-            p -= punteadasLector;
-        } else if (criticasLector != 0) {
-            p -= criticasLector;
-            p -= (punteadasEscritor * permisos);
+            default:
+                break;
         }
+    }
 
-        valSem = p;
+    /**
+     * Estado que ocupa más tiempo de la fila, con los tipos de flecha
+     * del modo exacto (PUNTEADA para la espera), o NINGUNA si la fila está vacía.
+     */
+    public TipoFlecha dominante(int f) {
+        float n = acumulado[f * 4 + NORMAL],
+            c = acumulado[f * 4 + CRITICA],
+            e = acumulado[f * 4 + ESPERA];
 
-        if (valSem == permisos) {
-            procesosEsperando.clear();
+        if (n == 0 && c == 0 && e == 0) {
+            return TipoFlecha.NINGUNA;
+        }
+        if (c >= n && c >= e) {
+            return TipoFlecha.CRITICA;
         }
+        return n >= e ? TipoFlecha.NORMAL : TipoFlecha.PUNTEADA;
     }
 
     /**
-     * Regresa una cadena con los nombres de los procesos en espera
-     * separados por comas y espacios:
-     *
-     * "A1, A2, A3"
+     * Fracción de la fila que el proceso pasó bloqueado.
      */
-    public String esperando() {
-        return procesosEsperando.stream().collect(Collectors.joining(", "));
+    public float bloqueado(int f) {
+        return Math.min(1f, acumulado[f * 4 + BLOQUEADO]);
+    }
+
+    private void acumula(int estado, long desde, long hasta) {
+        double a = desde / msPorFila,
+            b = hasta / msPorFila;
+        int fa = fila(desde),
+            fb = fila(hasta);
+
+        for (int f = fa; f <= fb; ++f) {
+            double traslape = Math.min(b, f + 1) - Math.max(a, f);
+            if (traslape > 0) {
+                acumulado[f * 4 + estado] += traslape;
+            }
+        }
+    }
+
+    private int fila(long t) {
+        return Math.max(0, Math.min(filas - 1, (int) (t / msPorFila)));
     }
 }
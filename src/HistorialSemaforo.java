@@ -0,0 +1,146 @@
+package lectores_escritores;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Vector;
+
+/**
+ * Historial exacto del semáforo de un recurso.
+ * Se construye con un solo barrido ordenado sobre los eventos
+ * PEDIR/OBTENER/LIBERAR/TIEMPO_AGOTADO (`Evento.java`) y se guarda como una función
+ * escalonada: a partir de `tiempos[i]` el semáforo vale `valores[i]`
+ * y esperan los procesos de `esperando[i]`.
+ *
+ * Cualquier consulta por tiempo es una búsqueda binaria, O(log n).
+ * Las listas de espera se construyen una sola vez por escalón y se
+ * comparten entre todas las consultas.
+ */
+public class HistorialSemaforo {
+    private long[] tiempos;
+    private int[] valores;
+    private String[] esperando;
+    private int pasos = 0;
+
+    public int permisos;
+
+    /**
+     * Construye el historial del recurso `recurso`, cuyo semáforo
+     * inicia con `permisos` permisos.
+     */
+    public HistorialSemaforo(Vector<Evento> eventos, int recurso, int permisos) {
+        this.permisos = permisos;
+
+        Vector<Evento> transiciones = new Vector<Evento>();
+        for (Evento e : eventos) {
+            if (e.recurso == recurso && (
+                    e.tipo == TipoEvento.PEDIR ||
+                    e.tipo == TipoEvento.OBTENER ||
+                    e.tipo == TipoEvento.LIBERAR ||
+                    e.tipo == TipoEvento.TIEMPO_AGOTADO)) {
+                transiciones.add(e);
+            }
+        }
+
+        // el ordenamiento es estable: a tiempos iguales se respeta el orden
+        // del registro, que para un mismo proceso es el orden del programa
+        Evento[] orden = transiciones.toArray(new Evento[0]);
+        Arrays.sort(orden, Comparator.comparingLong((Evento e) -> e.tiempoEjecucion));
+
+        tiempos = new long[orden.length + 1];
+        valores = new int[orden.length + 1];
+        esperando = new String[orden.length + 1];
+
+        LinkedHashSet<String> cola = new LinkedHashSet<String>();
+        int valor = permisos;
+        agregaPaso(0, valor, "");
+
+        int i = 0;
+        while (i < orden.length) {
+            long t = orden[i].tiempoEjecucion;
+            boolean cambioCola = false;
+
+            // todas las transiciones en el mismo ms forman un solo escalón
+            while (i < orden.length && orden[i].tiempoEjecucion == t) {
+                Evento e = orden[i++];
+                switch (e.tipo) {
+                    case PEDIR:
+                        cola.add(e.nombreProceso);
+                        cambioCola = true;
+                        break;
+                    case OBTENER:
+                        valor -= e.permisos;
+                        cambioCola |= cola.remove(e.nombreProceso);
+                        break;
+                    case LIBERAR:
+                        valor += e.permisos;
+                        break;
+                    default: // tiempo agotado: deja de esperar
+                        cambioCola |= cola.remove(e.nombreProceso);
+                        break;
+                }
+            }
+
+            String lista = cambioCola
+                ? String.join(", ", cola)
+                : esperando[pasos - 1];
+            agregaPaso(t, valor, lista);
+        }
+    }
+
+    /**
+     * Valor del semáforo en el tiempo `t` (ms).
+     */
+    public int valorEn(long t) {
+        return valores[indice(t)];
+    }
+
+    /**
+     * Procesos esperando el recurso en el tiempo `t` (ms),
+     * separados por comas y espacios.
+     */
+    public String esperandoEn(long t) {
+        return esperando[indice(t)];
+    }
+
+    /**
+     * Regresa los índices [primero, último] de los escalones que
+     * cubren el intervalo [desde, hasta].
+     */
+    public int[] rango(long desde, long hasta) {
+        return new int[] { indice(desde), indice(hasta) };
+    }
+
+    public int pasos() {
+        return pasos;
+    }
+
+    public long tiempoPaso(int i) {
+        return tiempos[i];
+    }
+
+    public int valorPaso(int i) {
+        return valores[i];
+    }
+
+    /**
+     * Último escalón que inicia en o antes de `t`.
+     */
+    private int indice(long t) {
+        int i = Arrays.binarySearch(tiempos, 0, pasos, t);
+        if (i < 0) {
+            i = -i - 2; // punto de inserción menos uno
+        }
+        return Math.max(i, 0);
+    }
+
+    private void agregaPaso(long t, int valor, String lista) {
+        if (pasos > 0 && tiempos[pasos - 1] == t) {
+            pasos--; // reemplaza el escalón que inicia en el mismo tiempo
+        }
+        tiempos[pasos] = t;
+        valores[pasos] = valor;
+        esperando[pasos] = lista;
+        pasos++;
+    }
+}
@@ -1,6 +1,7 @@
 package lectores_escritores;
 
 import java.util.Vector;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Clase de utilidad que lleva el registro de los eventos sucedidos
@@ -9,10 +10,15 @@ import java.util.Vector;
  */
 public class Logger {
     private long t;
+    private volatile long congelado = -1; // tiempo fijo mientras arrancan los procesos
     public Vector<Evento> eventos;
 
+    // cuenta de eventos para el monitoreo, se lee sin el candado de `eventos`
+    public LongAdder registrados;
+
     public Logger() {
         eventos = new Vector<Evento>();
+        registrados = new LongAdder();
     }
 
     /**
@@ -23,7 +29,7 @@ public class Logger {
                 "P(%s): %s (%d)",
                 proceso,
                 msg,
-                System.currentTimeMillis() - t));
+                transcurrido()));
     }
 
     /**
@@ -33,7 +39,7 @@ public class Logger {
      * Solo se usa cunado un proceso computa.
      */
     public void logC(String proceso, int tiempoComputo, int recursosEnUso) {
-        long te = System.currentTimeMillis() - t;
+        long te = transcurrido();
         System.out.println(String.format(
             "P(%s): Computando %d ms. (%d)",
             proceso,
@@ -47,6 +53,7 @@ public class Logger {
             te,
             tiempoComputo
         ));
+        registrados.increment();
     }
 
     /**
@@ -56,7 +63,7 @@ public class Logger {
      * Solo se usa cunado un proceso termina.
      */
     public void logT(String proceso) {
-        long te = System.currentTimeMillis() - t;
+        long te = transcurrido();
         System.out.println(String.format(
             "P(%s): Terminado. (%d)",
             proceso,
@@ -64,6 +71,51 @@ public class Logger {
         ));
 
         eventos.add(new Evento(proceso, te));
+        registrados.increment();
+    }
+
+    /**
+     * Imprime el mensaje correspondiente a un proceso pidiendo, obteniendo,
+     * liberando o dejando de esperar un recurso y su tiempo de ejecución en ms.
+     * Después agrega el evento a la lista de eventos.
+     * (logR -> log Recurso)
+     */
+    public void logR(String proceso, TipoEvento tipo, int recurso, int permisos) {
+        logR(proceso, tipo, recurso, permisos, transcurrido());
+    }
+
+    /**
+     * Igual que `logR`, pero el evento sucede en el tiempo `te` (ms).
+     * Lo usa `Proceso.leeEstado()` para registrar los recursos que un
+     * proceso restaurado ya tenía en la posición del punto de control.
+     */
+    public void logR(String proceso, TipoEvento tipo, int recurso, int permisos, long te) {
+        String msg;
+        switch (tipo) {
+            case PEDIR:
+                msg = "Pidiendo";
+                break;
+            case OBTENER:
+                msg = "Obtuvo";
+                break;
+            case TIEMPO_AGOTADO:
+                msg = "Tiempo agotado pidiendo";
+                break;
+            default:
+                msg = "Liberando";
+                break;
+        }
+
+        System.out.println(String.format(
+            "P(%s): %s recurso %d. (%d)",
+            proceso,
+            msg,
+            recurso,
+            te
+        ));
+
+        eventos.add(new Evento(proceso, tipo, recurso, permisos, te));
+        registrados.increment();
     }
 
     /**
@@ -74,4 +126,46 @@ public class Logger {
     public void tiempo() {
         t = System.currentTimeMillis();
     }
+
+    /**
+     * Tiempo transcurrido (ms) desde el tiempo inicial.
+     */
+    public long transcurrido() {
+        long c = congelado;
+        return c >= 0 ? c : System.currentTimeMillis() - t;
+    }
+
+    /**
+     * Detiene el tiempo en `te` (ms): los eventos registrados hasta
+     * `descongela()` suceden todos en `te`.
+     * Lo usa `PuntoControl.inicia()` para que el arranque de los procesos
+     * no aparezca en los tiempos.
+     */
+    public void congela(long te) {
+        congelado = te;
+    }
+
+    /**
+     * Continúa el tiempo desde donde se congeló.
+     */
+    public void descongela() {
+        t = System.currentTimeMillis() - congelado;
+        congelado = -1;
+    }
+
+    /**
+     * Recorre el tiempo inicial `ms` ms, para que una pausa de la
+     * simulación (`PuntoControl.java`) no aparezca en los tiempos.
+     */
+    public void recorre(long ms) {
+        t += ms;
+    }
+
+    /**
+     * Asigna el tiempo inicial de ejecución a `inicio` (ms).
+     * Lo usan los shards para compartir el inicio de tiempo del servidor.
+     */
+    public void tiempo(long inicio) {
+        t = inicio;
+    }
 }
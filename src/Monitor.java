@@ -0,0 +1,111 @@
+package lectores_escritores;
+
+import java.lang.management.ManagementFactory;
+import java.util.Vector;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Monitoreo de una simulación en curso por JMX.
+ * Registra un MBean por recurso (`RecursoMBean.java`) y uno para la
+ * simulación (`SimulacionMBean.java`) en el servidor de MBeans de la
+ * plataforma, así se pueden ver con jconsole mientras corre.
+ *
+ * Todas las lecturas son de campos volátiles o `LongAdder`; ninguna toma
+ * los candados que usan los procesos, así que observar la simulación no
+ * la altera.
+ */
+public class Monitor implements SimulacionMBean {
+    private static final String DOMINIO = "lectores_escritores";
+
+    private Vector<Proceso> procesos;
+    private Vector<Recurso> recursos;
+    private Logger logger;
+
+    // última muestra para calcular instrucciones por segundo
+    private long ultimoTiempo, ultimasEjecutadas;
+
+    public Monitor(Vector<Proceso> procesos, Vector<Recurso> recursos, Logger logger) {
+        this.procesos = procesos;
+        this.recursos = recursos;
+        this.logger = logger;
+        ultimoTiempo = System.nanoTime();
+        ultimasEjecutadas = 0;
+    }
+
+    /**
+     * Registra los MBeans.
+     */
+    public void registra() throws Exception {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+
+        servidor.registerMBean(
+            new StandardMBean(this, SimulacionMBean.class),
+            new ObjectName(DOMINIO + ":type=Simulacion"));
+
+        for (int r = 0; r < recursos.size(); ++r) {
+            servidor.registerMBean(
+                new StandardMBean(recursos.elementAt(r), RecursoMBean.class),
+                new ObjectName(DOMINIO + ":type=Recurso,name=" + r));
+        }
+    }
+
+    public int getProcesosComputando() {
+        return cuenta(Actividad.COMPUTANDO);
+    }
+
+    public int getProcesosEsperando() {
+        return cuenta(Actividad.ESPERANDO);
+    }
+
+    public int getProcesosTerminados() {
+        return cuenta(Actividad.TERMINADO);
+    }
+
+    public String[] getEstadoProcesos() {
+        String[] estados = new String[procesos.size()];
+        for (int i = 0; i < estados.length; ++i) {
+            Proceso p = procesos.elementAt(i);
+            estados[i] = p.nombre + ": " + p.actividad;
+        }
+        return estados;
+    }
+
+    public long getInstruccionesEjecutadas() {
+        long total = 0;
+        for (int i = 0; i < procesos.size(); ++i) {
+            total += procesos.elementAt(i).ejecutadas;
+        }
+        return total;
+    }
+
+    /**
+     * Instrucciones por segundo desde la consulta anterior.
+     * Solo sincroniza entre consultas de JMX, no con los procesos.
+     */
+    public synchronized double getInstruccionesPorSegundo() {
+        long ahora = System.nanoTime();
+        long ejecutadas = getInstruccionesEjecutadas();
+        double segundos = (ahora - ultimoTiempo) / 1e9;
+        double tasa = segundos > 0 ? (ejecutadas - ultimasEjecutadas) / segundos : 0.0;
+
+        ultimoTiempo = ahora;
+        ultimasEjecutadas = ejecutadas;
+        return tasa;
+    }
+
+    public long getEventosRegistrados() {
+        return logger.registrados.sum();
+    }
+
+    private int cuenta(Actividad a) {
+        int n = 0;
+        for (int i = 0; i < procesos.size(); ++i) {
+            if (procesos.elementAt(i).actividad == a) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,222 @@
+package lectores_escritores;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Planificador de CPU simulado.
+ * Sin él, todos los procesos computan al mismo tiempo (como si hubiera
+ * un núcleo por proceso). Con él, cada COMPUTE se convierte en una ráfaga
+ * que espera en la cola de uno de N núcleos simulados y solo avanza
+ * mientras un núcleo la ejecuta.
+ *
+ * Consideraciones:
+ *    - Las ráfagas se reparten entre los núcleos de forma circular;
+ *      un núcleo sin trabajo le roba a los demás, y si nadie tiene
+ *      trabajo duerme hasta que se encola una ráfaga en cualquier núcleo.
+ *    - FIFO ejecuta cada ráfaga completa.
+ *    - ROUND_ROBIN ejecuta como máximo `quantum` ms y regresa la ráfaga
+ *      al final de la cola.
+ *    - PRIORIDAD ejecuta primero la ráfaga con mayor prioridad
+ *      (`Proceso.prioridad`), sin expropiación.
+ *    - Cada porción ejecutada se registra como un evento COMPUTAR, así
+ *      el tiempo en cola aparece como espera en la gráfica.
+ */
+public class Planificador {
+    private Politica politica;
+    private int quantum;
+    private Vector<Nucleo> nucleos;
+    private int siguiente = 0;
+    private long secuencia = 0;
+    private long inicio;
+    private long encoladas = 0; // cambia con cada ráfaga encolada; protegido por `this`
+
+    /**
+     * Construye un planificador con `n` núcleos.
+     * `quantum` (ms) solo se usa con ROUND_ROBIN.
+     */
+    public Planificador(int n, Politica politica, int quantum) {
+        this.politica = politica;
+        this.quantum = Math.max(quantum, 1);
+        nucleos = new Vector<Nucleo>();
+        for (int i = 0; i < n; ++i) {
+            nucleos.add(new Nucleo(i));
+        }
+    }
+
+    /**
+     * Arranca los núcleos.
+     */
+    public void inicia() {
+        inicio = System.nanoTime();
+        for (Nucleo n : nucleos) {
+            n.start();
+        }
+    }
+
+    /**
+     * Ejecuta una ráfaga de `ms` milisegundos de cómputo del proceso `p`.
+     * Bloquea hasta que la ráfaga se haya ejecutado por completo.
+     */
+    public void computa(Proceso p, int ms, int recursosEnUso, Logger logger)
+    throws InterruptedException {
+        Rafaga r = new Rafaga(p.nombre, p.prioridad, ms, recursosEnUso, logger);
+        Nucleo n;
+        synchronized (this) {
+            r.secuencia = secuencia++;
+            n = nucleos.elementAt(siguiente);
+            siguiente = (siguiente + 1) % nucleos.size();
+        }
+        n.encola(r);
+        r.terminada.await();
+    }
+
+    /**
+     * Imprime la utilización y el retraso en cola de cada núcleo.
+     */
+    public void reporta() {
+        double total = (System.nanoTime() - inicio) / 1e6;
+        for (Nucleo n : nucleos) {
+            System.out.println(String.format(
+                "Núcleo %d: utilización %.1f%%, %d porciones, %d robadas, retraso en cola %.2f ms (máx %.2f ms)",
+                n.id,
+                total > 0 ? 100.0 * n.ocupado / 1e6 / total : 0.0,
+                n.porciones,
+                n.robadas,
+                n.porciones > 0 ? n.retraso / 1e6 / n.porciones : 0.0,
+                n.maxRetraso / 1e6));
+        }
+    }
+
+    private Queue<Rafaga> nuevaCola() {
+        if (politica == Politica.PRIORIDAD) {
+            return new PriorityQueue<Rafaga>(Comparator
+                    .comparingInt((Rafaga r) -> -r.prioridad)
+                    .thenComparingLong(r -> r.secuencia));
+        }
+        return new ArrayDeque<Rafaga>();
+    }
+
+    /**
+     * Ráfaga de cómputo pendiente de un proceso.
+     */
+    private class Rafaga {
+        String nombre;
+        int prioridad, restante, recursosEnUso;
+        Logger logger;
+        long secuencia, encolada;
+        CountDownLatch terminada = new CountDownLatch(1);
+
+        Rafaga(String nombre, int prioridad, int ms, int recursosEnUso, Logger logger) {
+            this.nombre = nombre;
+            this.prioridad = prioridad;
+            this.restante = ms;
+            this.recursosEnUso = recursosEnUso;
+            this.logger = logger;
+        }
+    }
+
+    /**
+     * Núcleo simulado: un hilo con su propia cola de ráfagas.
+     */
+    private class Nucleo extends Thread {
+        int id;
+        private Queue<Rafaga> cola;
+        // solo los escribe el hilo del núcleo; `reporta()` los lee desde otro
+        volatile long ocupado = 0, retraso = 0, maxRetraso = 0;
+        volatile int porciones = 0, robadas = 0;
+
+        Nucleo(int id) {
+            this.id = id;
+            cola = nuevaCola();
+            setDaemon(true);
+        }
+
+        void encola(Rafaga r) {
+            synchronized (this) {
+                r.encolada = System.nanoTime();
+                cola.add(r);
+            }
+            // despierta a los núcleos sin trabajo, cualquiera puede robarla
+            synchronized (Planificador.this) {
+                encoladas++;
+                Planificador.this.notifyAll();
+            }
+        }
+
+        synchronized Rafaga toma() {
+            return cola.poll();
+        }
+
+        /**
+         * Toma una ráfaga de la cola de otro núcleo.
+         */
+        Rafaga roba() {
+            for (int i = 1; i < nucleos.size(); ++i) {
+                Nucleo otro = nucleos.elementAt((id + i) % nucleos.size());
+                Rafaga r = otro.toma();
+                if (r != null) {
+                    robadas++;
+                    return r;
+                }
+            }
+            return null;
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    // se lee antes de revisar las colas, así una ráfaga
+                    // encolada después de revisarlas no se pierde
+                    long vistas;
+                    synchronized (Planificador.this) {
+                        vistas = encoladas;
+                    }
+
+                    Rafaga r = toma();
+                    if (r == null) {
+                        r = roba();
+                    }
+                    if (r == null) {
+                        synchronized (Planificador.this) {
+                            while (encoladas == vistas) {
+                                Planificador.this.wait();
+                            }
+                        }
+                        continue;
+                    }
+                    ejecuta(r);
+                }
+            } catch (InterruptedException e) {
+                // termina el núcleo
+            }
+        }
+
+        private void ejecuta(Rafaga r) throws InterruptedException {
+            long ahora = System.nanoTime();
+            long espera = ahora - r.encolada;
+            retraso += espera;
+            maxRetraso = Math.max(maxRetraso, espera);
+            porciones++;
+
+            int porcion = politica == Politica.ROUND_ROBIN
+                ? Math.min(quantum, r.restante)
+                : r.restante;
+
+            r.logger.logC(r.nombre, porcion, r.recursosEnUso);
+            Thread.sleep(porcion);
+            ocupado += System.nanoTime() - ahora;
+            r.restante -= porcion;
+
+            if (r.restante > 0) {
+                encola(r);
+            } else {
+                r.terminada.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package lectores_escritores;
+
+/**
+ * Enumeración pública para la política de planificación (`Planificador.java`).
+ */
+public enum Politica {
+    FIFO,
+    ROUND_ROBIN,
+    PRIORIDAD,
+}
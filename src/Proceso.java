@@ -2,6 +2,7 @@ package lectores_escritores;
 
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Clase que representa un proceso en la simulación.
@@ -14,9 +15,18 @@ public class Proceso extends Thread {
     private Stack<Comando> comandos;
     private Logger logger;
     private int recursosEnUso;
+    private Vector<Integer> retenidos;
+    private Planificador planificador;
+    private PuntoControl control;
+    private Comando actual; // instrucción en curso, para los puntos de control
 
     public TipoProceso tipo;
     public String nombre;
+    public int prioridad;
+
+    // leídos sin candados por el monitoreo (`Monitor.java`)
+    public volatile Actividad actividad;
+    public volatile long ejecutadas;
 
     /**
      * Constructor que necesita una lista de recursos disponible, un logger
@@ -25,6 +35,14 @@ public class Proceso extends Thread {
      */
     public Proceso(String archivo, String nombre, Vector<Recurso> recursos, Logger logger)
     throws Exception {
+        this(nombre, recursos, logger);
+        leeArchivo(archivo);
+    }
+
+    /**
+     * Proceso sin instrucciones; lo usa `leeEstado()`.
+     */
+    private Proceso(String nombre, Vector<Recurso> recursos, Logger logger) {
         comandos = new Stack<Comando>();
         tipo = null;
 
@@ -32,8 +50,29 @@ public class Proceso extends Thread {
         this.recursos = recursos;
         this.logger = logger;
         recursosEnUso = 0;
+        retenidos = new Vector<Integer>();
+        prioridad = 0;
+        planificador = null;
+        control = null;
+        actual = null;
+        actividad = Actividad.LISTO;
+        ejecutadas = 0;
+    }
 
-        leeArchivo(archivo);
+    /**
+     * Hace que las instrucciones COMPUTE se ejecuten en los núcleos
+     * simulados de `p` en vez de todas al mismo tiempo.
+     */
+    public void asignaPlanificador(Planificador p) {
+        planificador = p;
+    }
+
+    /**
+     * Permite pausar el proceso entre instrucciones para tomar puntos
+     * de control (`PuntoControl.java`).
+     */
+    public void asignaControl(PuntoControl c) {
+        control = c;
     }
 
     /**
@@ -46,22 +85,270 @@ public class Proceso extends Thread {
         } else {
             recursos.elementAt(r).libera();
         }
+        recursos.elementAt(r).registraLiberacion(permisos(r));
     }
 
     /**
      * Pide cierta cantidad de permisos dependiendo el tipo de proceso.
      * Interactua con `Recurso.java`.
+     *
+     * Con punto de control, una pausa interrumpe la espera: el proceso se
+     * detiene sin el recurso, conserva su lugar en la cola de espera
+     * y vuelve a pedirlo al reanudar.
      */
     private synchronized void pide(int r) {
+        recursos.elementAt(r).comienzaEspera();
+        boolean obtuvo = false;
         try {
-            if (tipo == TipoProceso.ESCRITOR) {
-                recursos.elementAt(r).pideTodos();
-            } else {
-                recursos.elementAt(r).pide();
+            if (control != null) {
+                control.esperando(this);
+            }
+            while (true) {
+                try {
+                    if (tipo == TipoProceso.ESCRITOR) {
+                        recursos.elementAt(r).pideTodos();
+                    } else {
+                        recursos.elementAt(r).pide();
+                    }
+                    obtuvo = true;
+                    break;
+                } catch (InterruptedException e) {
+                    if (control == null) {
+                        throw e;
+                    }
+                    control.frontera(this);
+                }
+            }
+            if (control != null) {
+                control.obtuvo(this);
             }
         } catch (Exception e) {
             System.out.println(e.getMessage());
         }
+        recursos.elementAt(r).terminaEspera(obtuvo, permisos(r));
+    }
+
+    /**
+     * Espera el tiempo de cómputo de `c`.
+     * Con punto de control, una pausa interrumpe la espera: el cómputo
+     * restante queda como instrucción en curso y continúa al reanudar.
+     */
+    private synchronized void computa(Comando c) throws InterruptedException {
+        if (control == null) {
+            wait(c.valor);
+            return;
+        }
+
+        long resta = c.valor;
+        control.interrumpible(this);
+        while (resta > 0) {
+            long inicio = System.currentTimeMillis();
+            try {
+                wait(resta);
+                resta -= System.currentTimeMillis() - inicio;
+            } catch (InterruptedException e) {
+                resta -= System.currentTimeMillis() - inicio;
+                actual = new Comando(Cmd.COMPUTE, (int) Math.max(resta, 0));
+                control.frontera(this);
+            }
+        }
+        control.noInterrumpible(this);
+    }
+
+    /**
+     * Intenta obtener el recurso de una petición con límite
+     * (TRY_REQUIRE o TIMED_REQUIRE).
+     * Después del n-ésimo intento fallido espera un tiempo aleatorio
+     * entre 1 y `espera * 2^(n-1)` ms (backoff exponencial con jitter;
+     * el exponente se limita a 20).
+     * Cada intento fallido se registra como TIEMPO_AGOTADO.
+     * Regresa verdadero si obtuvo el recurso.
+     *
+     * El progreso se guarda en `c` (intento, fase y ms restantes), así una
+     * pausa de punto de control puede interrumpir la espera o el intento
+     * sin gastar el límite y continuar después, incluso tras restaurar.
+     */
+    private synchronized boolean intentaPide(Comando c) throws Exception {
+        Recurso r = recursos.elementAt(c.valor);
+        if (control != null) {
+            control.interrumpible(this);
+        }
+
+        try {
+            while (c.intento <= c.reintentos) {
+                if (c.enEspera) {
+                    if (c.resta < 0) {
+                        long tope = (long) c.espera << Math.min(c.intento - 1, 20);
+                        c.resta = ThreadLocalRandom.current().nextLong(tope) + 1;
+                    }
+                    while (c.resta > 0) {
+                        long inicio = System.currentTimeMillis();
+                        try {
+                            wait(c.resta);
+                            c.resta -= System.currentTimeMillis() - inicio;
+                        } catch (InterruptedException e) {
+                            c.resta -= System.currentTimeMillis() - inicio;
+                            pausaInterrumpida(e);
+                        }
+                    }
+                    c.enEspera = false;
+                    c.resta = -1;
+                }
+
+                if (c.resta < 0) {
+                    logger.logR(nombre, TipoEvento.PEDIR, c.valor, permisos(c.valor));
+                    r.comienzaEspera();
+                    c.resta = c.tipo == Cmd.TRY_REQUIRE ? 0 : c.limite;
+                }
+
+                long inicio = System.currentTimeMillis();
+                boolean obtuvo;
+                try {
+                    obtuvo = r.intentaPide(permisos(c.valor), c.resta);
+                } catch (InterruptedException e) {
+                    c.resta = Math.max(0, c.resta - (System.currentTimeMillis() - inicio));
+                    pausaInterrumpida(e);
+                    continue;
+                }
+
+                r.terminaEspera(obtuvo, permisos(c.valor));
+                c.resta = -1;
+                if (obtuvo) {
+                    logger.logR(nombre, TipoEvento.OBTENER, c.valor, permisos(c.valor));
+                    return true;
+                }
+                logger.logR(nombre, TipoEvento.TIEMPO_AGOTADO, c.valor, permisos(c.valor));
+                c.intento++;
+                c.enEspera = true;
+            }
+            return false;
+        } finally {
+            if (control != null) {
+                control.noInterrumpible(this);
+            }
+        }
+    }
+
+    /**
+     * Atiende una interrupción de una espera: con punto de control es una
+     * pausa y el proceso se detiene hasta que se reanude; sin él, se propaga.
+     */
+    private void pausaInterrumpida(InterruptedException e) throws InterruptedException {
+        if (control == null) {
+            throw e;
+        }
+        control.frontera(this);
+    }
+
+    /**
+     * Recuperación por tiempo agotado: libera todos los recursos que
+     * tiene el proceso y descarta sus instrucciones restantes.
+     */
+    private synchronized void aborta() {
+        logger.log(nombre, "Abortando, se agotaron los reintentos.");
+        for (int r : retenidos) {
+            logger.logR(nombre, TipoEvento.LIBERAR, r, permisos(r));
+            libera(r);
+        }
+        retenidos.clear();
+        recursosEnUso = 0;
+        comandos.clear();
+        logger.logT(nombre);
+    }
+
+    /**
+     * Cantidad de permisos que el proceso pide o libera del recurso `r`.
+     * Los escritores usan todos, los lectores solo uno.
+     */
+    private int permisos(int r) {
+        return tipo == TipoProceso.ESCRITOR ? recursos.elementAt(r).t : 1;
+    }
+
+    /**
+     * Regresa una copia de las instrucciones pendientes del proceso,
+     * en el orden en que se ejecutarán.
+     * Lo usa `Verificador.java` para explorar el programa sin ejecutarlo.
+     */
+    public Vector<Comando> instrucciones() {
+        return new Vector<Comando>(comandos);
+    }
+
+    /**
+     * Escribe el estado del proceso en formato binario (`PuntoControl.java`):
+     * sus datos, los recursos que tiene y las instrucciones pendientes,
+     * empezando por la que está en curso.
+     * Se llama con el proceso detenido en un punto de control.
+     */
+    public void escribeEstado(DataOutputStream s) throws IOException {
+        s.writeUTF(nombre);
+        s.writeByte(tipo.ordinal());
+        s.writeInt(prioridad);
+        s.writeLong(ejecutadas);
+
+        s.writeInt(retenidos.size());
+        for (int r : retenidos) {
+            s.writeInt(r);
+        }
+
+        Vector<Comando> pendientes = instrucciones();
+        if (actual != null) {
+            pendientes.add(0, actual);
+        }
+        s.writeInt(pendientes.size());
+        for (Comando c : pendientes) {
+            c.escribe(s);
+        }
+    }
+
+    /**
+     * Lee un proceso escrito con `escribeEstado` y le devuelve los
+     * recursos que tenía. Registra en `posicion` (ms) un OBTENER por cada
+     * uno, y un PEDIR por una petición con límite a la mitad de un intento,
+     * para que el historial de eventos vuelva a cuadrar con los recursos.
+     * Lanza una excepción si los recursos no alcanzan.
+     */
+    public static Proceso leeEstado(DataInputStream s, Vector<Recurso> recursos, Logger logger,
+                                    long posicion)
+    throws IOException {
+        Proceso p = new Proceso(s.readUTF(), recursos, logger);
+        p.tipo = TipoProceso.values()[s.readByte()];
+        p.prioridad = s.readInt();
+        p.ejecutadas = s.readLong();
+
+        int n = s.readInt();
+        for (int i = 0; i < n; ++i) {
+            int r = s.readInt();
+            if (!recursos.elementAt(r).reserva(p.permisos(r))) {
+                throw new IOException("El recurso " + r + " no alcanza para " + p.nombre);
+            }
+            logger.logR(p.nombre, TipoEvento.OBTENER, r, p.permisos(r), posicion);
+            p.retenidos.add(r);
+        }
+        p.recursosEnUso = n;
+
+        n = s.readInt();
+        for (int i = 0; i < n; ++i) {
+            p.comandos.add(Comando.lee(s));
+        }
+
+        // una petición con límite a la mitad de un intento ya estaba esperando
+        if (n > 0) {
+            Comando c = p.comandos.firstElement();
+            if ((c.tipo == Cmd.TRY_REQUIRE || c.tipo == Cmd.TIMED_REQUIRE)
+                && !c.enEspera && c.resta >= 0) {
+                logger.logR(p.nombre, TipoEvento.PEDIR, c.valor, p.permisos(c.valor), posicion);
+                recursos.elementAt(c.valor).comienzaEspera();
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Verdadero si el proceso tiene instrucciones pendientes o recursos,
+     * es decir, si debe guardarse en un punto de control.
+     */
+    public boolean tieneEstado() {
+        return actual != null || comandos.size() > 0 || retenidos.size() > 0;
     }
 
     /**
@@ -71,28 +358,51 @@ public class Proceso extends Thread {
      */
     public synchronized void run() {
         while (comandos.size() > 0) {
+            if (control != null) {
+                control.frontera(this);
+            }
             Comando c = comandos.remove(0);
+            actual = c;
 
             try {
                 switch (c.tipo) {
                     case COMPUTE:
-                        logger.logC(nombre, c.valor, recursosEnUso);
-                        wait(c.valor);
+                        actividad = Actividad.COMPUTANDO;
+                        if (planificador != null) {
+                            planificador.computa(this, c.valor, recursosEnUso, logger);
+                        } else {
+                            logger.logC(nombre, c.valor, recursosEnUso);
+                            computa(c);
+                        }
                         break;
 
                     case FREE:
-                        logger.log(nombre, "Liberando recurso " + c.valor + ".");
+                        logger.logR(nombre, TipoEvento.LIBERAR, c.valor, permisos(c.valor));
                         libera(c.valor);
+                        retenidos.remove((Integer) c.valor);
                         recursosEnUso--;
                         break;
 
                     case REQUIRE:
-                        logger.log(nombre, "Pidiendo recurso " + c.valor + ".");
+                        actividad = Actividad.ESPERANDO;
+                        logger.logR(nombre, TipoEvento.PEDIR, c.valor, permisos(c.valor));
                         pide(c.valor);
-                        logger.log(nombre, "Obtuvo recurso " + c.valor + ".");
+                        logger.logR(nombre, TipoEvento.OBTENER, c.valor, permisos(c.valor));
+                        retenidos.add(c.valor);
                         recursosEnUso++;
                         break;
 
+                    case TRY_REQUIRE:
+                    case TIMED_REQUIRE:
+                        actividad = Actividad.ESPERANDO;
+                        if (intentaPide(c)) {
+                            retenidos.add(c.valor);
+                            recursosEnUso++;
+                        } else {
+                            aborta();
+                        }
+                        break;
+
                     case HALT:
                         logger.logT(nombre);
                         break;
@@ -100,7 +410,13 @@ public class Proceso extends Thread {
             } catch (Exception e) {
                 System.out.println("Error: " + e.getMessage());
             }
+
+            actual = null;
+            actividad = Actividad.LISTO;
+            ejecutadas++; // solo este hilo lo escribe
         }
+
+        actividad = Actividad.TERMINADO;
     }
 
     /**
@@ -109,7 +425,15 @@ public class Proceso extends Thread {
      *
      * Se espera una sintaxis parecida a la que requiere el MOSS deadlock,
      * pero con un caracter adicional: E o L, según si el proceso es
-     * lector o escritor.
+     * lector o escritor, seguido opcionalmente de su prioridad
+     * (la usa `Planificador.java`).
+     *
+     * Además de R, F, C y H se aceptan peticiones con límite:
+     *    - T <recurso> [reintentos] [espera]: intenta sin esperar.
+     *    - W <recurso> <límite> [reintentos] [espera]: espera como máximo
+     *      <límite> ms.
+     * <límite> y [reintentos] deben ser >= 0 y [espera] >= 1 (ms).
+     * Si se agotan los reintentos, el proceso libera lo que tiene y aborta.
      *
      * Se llama en el constructor.
      * Lanza una excepción cuando no encuentra el tipo de proceso.
@@ -132,8 +456,14 @@ public class Proceso extends Thread {
 
             if (token.startsWith("E")) { // Es un escritor
                 tipo = TipoProceso.ESCRITOR;
+                if (t.hasMoreTokens()) {
+                    prioridad = Integer.parseInt(t.nextToken().strip());
+                }
             } else if (token.startsWith("L")) { // Es un lector
                 tipo = TipoProceso.LECTOR;
+                if (t.hasMoreTokens()) {
+                    prioridad = Integer.parseInt(t.nextToken().strip());
+                }
             } else if (token.startsWith("C")) {
                 comandos.push(new Comando(
                     Cmd.COMPUTE,
@@ -144,6 +474,24 @@ public class Proceso extends Thread {
                     Cmd.REQUIRE,
                     Integer.parseInt(t.nextToken().strip())
                 ));
+            } else if (token.startsWith("T")) {
+                int r = Integer.parseInt(t.nextToken().strip());
+                comandos.push(valida(new Comando(
+                    Cmd.TRY_REQUIRE,
+                    r,
+                    0,
+                    t.hasMoreTokens() ? Integer.parseInt(t.nextToken().strip()) : 0,
+                    t.hasMoreTokens() ? Integer.parseInt(t.nextToken().strip()) : 1
+                ), archivo));
+            } else if (token.startsWith("W")) {
+                int r = Integer.parseInt(t.nextToken().strip());
+                comandos.push(valida(new Comando(
+                    Cmd.TIMED_REQUIRE,
+                    r,
+                    Integer.parseInt(t.nextToken().strip()),
+                    t.hasMoreTokens() ? Integer.parseInt(t.nextToken().strip()) : 0,
+                    t.hasMoreTokens() ? Integer.parseInt(t.nextToken().strip()) : 1
+                ), archivo));
             } else if (token.startsWith("F")) {
                 comandos.push(new Comando(
                     Cmd.FREE,
@@ -162,4 +510,18 @@ public class Proceso extends Thread {
             throw new Exception("No hay tipo de proceso (" + archivo + ").\n");
         }
     }
+
+    /**
+     * Revisa los valores de una petición con límite: el límite y los
+     * reintentos no pueden ser negativos y la espera base debe ser de
+     * al menos 1 ms (el backoff la usa como cota del tiempo aleatorio).
+     */
+    private static Comando valida(Comando c, String archivo) throws Exception {
+        if (c.limite < 0 || c.reintentos < 0 || c.espera < 1) {
+            throw new Exception(
+                "Petición con límite inválida (" + archivo + "): límite y reintentos " +
+                "deben ser >= 0 y la espera >= 1.\n");
+        }
+        return c;
+    }
 }
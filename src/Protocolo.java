@@ -0,0 +1,131 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Constantes y utilidades del protocolo binario entre un servidor de
+ * recursos (`ServidorRecursos.java`) y los shards (`ClienteRecursos.java`).
+ *
+ * Una dirección numérica es un puerto TCP en loopback; cualquier otra
+ * cosa es la ruta de un socket de dominio Unix.
+ *
+ * Mensajes del shard al servidor:
+ *    - PIDE:    op (byte), id (int), recurso (int), permisos (int).
+ *    - LIBERA:  op (byte), id (int), recurso (int), permisos (int).
+ *    - INTENTA: op (byte), id (int), recurso (int), permisos (int),
+ *               límite en ms (int).
+ *    - EVENTOS: op (byte), cantidad (int), eventos (`Evento.escribe`).
+ *
+ * Mensajes del servidor al shard:
+ *    - Al conectarse: tiempo inicial (long), número de recursos (int)
+ *      y permisos de cada uno (int).
+ *    - LISTO: op (byte), id (int) de un PIDE o INTENTA ya concedido.
+ *    - NEGADO: op (byte), id (int) de un INTENTA cuyo límite se agotó,
+ *      o de un PIDE o INTENTA que falló en el servidor.
+ *
+ * Toda petición PIDE o INTENTA recibe exactamente una respuesta. Una
+ * operación desconocida hace que el servidor cierre la conexión.
+ */
+public class Protocolo {
+    public static final byte PIDE = 1;
+    public static final byte LIBERA = 2;
+    public static final byte EVENTOS = 3;
+    public static final byte LISTO = 4;
+    public static final byte INTENTA = 5;
+    public static final byte NEGADO = 6;
+
+    /**
+     * Abre un canal de escucha en `direccion`.
+     */
+    public static ServerSocketChannel escucha(String direccion) throws IOException {
+        if (esPuerto(direccion)) {
+            ServerSocketChannel s = ServerSocketChannel.open();
+            s.bind(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(),
+                Integer.parseInt(direccion)));
+            return s;
+        }
+
+        Path ruta = Path.of(direccion);
+        Files.deleteIfExists(ruta);
+        ServerSocketChannel s = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        s.bind(UnixDomainSocketAddress.of(ruta));
+        return s;
+    }
+
+    /**
+     * Se conecta al servidor que escucha en `direccion`.
+     */
+    public static SocketChannel conecta(String direccion) throws IOException {
+        SocketChannel c;
+        if (esPuerto(direccion)) {
+            c = SocketChannel.open(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(),
+                Integer.parseInt(direccion)));
+        } else {
+            c = SocketChannel.open(UnixDomainSocketAddress.of(direccion));
+        }
+        configura(c);
+        return c;
+    }
+
+    /**
+     * Desactiva el algoritmo de Nagle en canales TCP; los mensajes
+     * ya se agrupan antes de escribirse.
+     */
+    public static void configura(SocketChannel c) throws IOException {
+        if (c.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            c.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+    }
+
+    /**
+     * Flujo de entrada sobre el canal.
+     * No se usa `Channels.newInputStream` porque bloquea las escrituras
+     * concurrentes sobre el mismo canal mientras espera datos.
+     */
+    public static DataInputStream entrada(SocketChannel c) {
+        return new DataInputStream(new BufferedInputStream(new InputStream() {
+            public int read() throws IOException {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xff);
+            }
+
+            public int read(byte[] b, int off, int len) throws IOException {
+                return c.read(ByteBuffer.wrap(b, off, len));
+            }
+        }));
+    }
+
+    /**
+     * Flujo de salida sobre el canal (ver `entrada`).
+     */
+    public static DataOutputStream salida(SocketChannel c) {
+        return new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+            public void write(int b) throws IOException {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            public void write(byte[] b, int off, int len) throws IOException {
+                ByteBuffer bb = ByteBuffer.wrap(b, off, len);
+                while (bb.hasRemaining()) {
+                    c.write(bb);
+                }
+            }
+        }, 1 << 16));
+    }
+
+    private static boolean esPuerto(String direccion) {
+        return direccion.chars().allMatch(Character::isDigit);
+    }
+}
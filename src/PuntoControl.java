@@ -0,0 +1,334 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Vector;
+
+/**
+ * Puntos de control de una simulación en curso.
+ * Pausa los procesos entre instrucciones, escribe un resumen binario de
+ * su estado y permite restaurarlo después (en otra JVM) para continuar
+ * la simulación desde ese punto.
+ *
+ * El punto de control guarda solo el estado vivo, no la historia:
+ *    - La posición del logger (tiempo transcurrido y eventos registrados).
+ *    - Los permisos de cada recurso.
+ *    - Por proceso con estado: sus instrucciones pendientes, los recursos
+ *      que tiene (`Proceso.escribeEstado()`).
+ *    - El orden de las colas de espera de los recursos.
+ * Así el tamaño y la duración de la pausa dependen de los procesos vivos
+ * y sus instrucciones, no de cuántos eventos han pasado.
+ *
+ * Consideraciones:
+ *    - Un proceso se detiene antes de su siguiente instrucción. Si está
+ *      bloqueado en un REQUIRE se interrumpe su espera y se detiene sin
+ *      el recurso (ver `Proceso.pide()`); si está en un COMPUTE se detiene
+ *      y guarda el cómputo restante (ver `Proceso.computa()`); si está en
+ *      una petición con límite se detiene sin gastar el límite y guarda su
+ *      intento y el tiempo restante (ver `Proceso.intentaPide()`).
+ *      Los cómputos en un planificador terminan antes de la pausa.
+ *    - El tiempo en pausa no aparece en los tiempos del logger.
+ *    - No funciona con recursos remotos (`RecursoRemoto.java`) ni con
+ *      sesgo de lectura: un escritor de `RecursoSesgado.java` espera a los
+ *      lectores del camino rápido sin poder interrumpirse, y esos lectores
+ *      pueden estar detenidos en la pausa.
+ */
+public class PuntoControl {
+    private static final int MAGIA = 0x4C455043; // "LEPC"
+    private static final int VERSION = 2;
+
+    public Vector<Proceso> procesos;
+    public Vector<Recurso> recursos;
+    private Logger logger;
+
+    private boolean pausa = false;
+    private long pausadoEn, posicion;
+    private HashSet<Proceso> parados;
+    private HashSet<Proceso> interrumpidos;
+    private LinkedHashSet<Proceso> esperando; // en orden de llegada
+    private HashSet<Proceso> interrumpibles; // computando o en petición con límite
+
+    private Vector<Proceso> colaRestaurada;
+    private long posicionRestaurada = -1;
+
+    /**
+     * Asigna este punto de control a todos los procesos.
+     * Debe crearse antes de iniciarlos.
+     */
+    public PuntoControl(Vector<Proceso> procesos, Vector<Recurso> recursos, Logger logger) {
+        this.procesos = procesos;
+        this.recursos = recursos;
+        this.logger = logger;
+        parados = new HashSet<Proceso>();
+        interrumpidos = new HashSet<Proceso>();
+        esperando = new LinkedHashSet<Proceso>();
+        interrumpibles = new HashSet<Proceso>();
+        colaRestaurada = new Vector<Proceso>();
+
+        for (Proceso p : procesos) {
+            p.asignaControl(this);
+        }
+    }
+
+    /**
+     * Inicia los procesos. Los que estaban esperando un recurso cuando se
+     * tomó el punto de control se inician primero y uno por uno, para que
+     * vuelvan a formarse en el mismo orden.
+     * El tiempo del logger se congela mientras arrancan, así la espera
+     * entre uno y otro no aparece como tiempo simulado.
+     */
+    public void inicia() throws InterruptedException {
+        logger.congela(posicionRestaurada >= 0 ? posicionRestaurada : logger.transcurrido());
+
+        for (Proceso p : colaRestaurada) {
+            p.start();
+            synchronized (this) {
+                long limite = System.currentTimeMillis() + 1000;
+                while (!esperando.contains(p) && p.isAlive()
+                       && System.currentTimeMillis() < limite) {
+                    wait(10);
+                }
+            }
+        }
+
+        HashSet<Proceso> formados = new HashSet<Proceso>(colaRestaurada);
+        for (Proceso p : procesos) {
+            if (!formados.contains(p)) {
+                p.start();
+            }
+        }
+        logger.descongela();
+    }
+
+    /**
+     * Pide la pausa y espera a que todos los procesos vivos se detengan.
+     * Interrumpe una vez a cada proceso bloqueado en un recurso,
+     * computando o en una petición con límite.
+     */
+    public synchronized void pausa() throws InterruptedException {
+        pausa = true;
+        while (!detenidos()) {
+            interrumpe(esperando);
+            interrumpe(interrumpibles);
+            wait(10);
+        }
+        pausadoEn = System.currentTimeMillis();
+        posicion = logger.transcurrido();
+    }
+
+    /**
+     * Reanuda los procesos. El tiempo en pausa se descuenta del logger.
+     */
+    public synchronized void reanuda() {
+        logger.recorre(System.currentTimeMillis() - pausadoEn);
+        pausa = false;
+        notifyAll();
+    }
+
+    /**
+     * Escribe el punto de control en `archivo`. Se llama en pausa.
+     * Primero escribe un archivo temporal y luego lo renombra, así un
+     * punto de control anterior no se pierde si la JVM muere a la mitad.
+     * Regresa el tamaño en bytes.
+     */
+    public synchronized long guarda(String archivo) throws IOException {
+        File tmp = new File(archivo + ".tmp");
+        DataOutputStream s = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(tmp)));
+        escribe(s);
+        s.close();
+
+        Files.move(tmp.toPath(), new File(archivo).toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new File(archivo).length();
+    }
+
+    /**
+     * Cada `cadaMs` ms pausa la simulación, guarda un punto de control en
+     * `archivo` y la reanuda, hasta que terminan todos los procesos.
+     */
+    public void periodico(String archivo, long cadaMs) {
+        Thread t = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(cadaMs);
+                    if (terminados()) {
+                        return;
+                    }
+
+                    long inicio = System.nanoTime();
+                    pausa();
+                    long bytes = guarda(archivo);
+                    reanuda();
+                    System.out.println(String.format(
+                        "Punto de control: %d bytes, pausa de %.2f ms.",
+                        bytes, (System.nanoTime() - inicio) / 1e6));
+                }
+            } catch (Exception e) {
+                System.out.println("Error en punto de control: " + e.getMessage());
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Lee un punto de control escrito con `guarda`. Los recursos ya tienen
+     * tomados los permisos de sus poseedores, registrados en el logger como
+     * OBTENER en la posición del punto de control; los procesos están
+     * listos para `inicia()`.
+     */
+    public static PuntoControl restaura(String archivo, Logger logger) throws Exception {
+        DataInputStream s = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(archivo)));
+
+        if (s.readInt() != MAGIA || s.readByte() != VERSION) {
+            s.close();
+            throw new Exception("No es un punto de control válido (" + archivo + ").");
+        }
+
+        long posicion = s.readLong();
+        logger.registrados.add(s.readLong());
+
+        Vector<Recurso> recursos = new Vector<Recurso>();
+        int n = s.readInt();
+        for (int r = 0; r < n; ++r) {
+            recursos.add(new Recurso(s.readInt()));
+        }
+
+        Vector<Proceso> procesos = new Vector<Proceso>();
+        n = s.readInt();
+        for (int i = 0; i < n; ++i) {
+            procesos.add(Proceso.leeEstado(s, recursos, logger, posicion));
+        }
+
+        PuntoControl c = new PuntoControl(procesos, recursos, logger);
+        c.posicionRestaurada = posicion;
+        n = s.readInt();
+        for (int i = 0; i < n; ++i) {
+            c.colaRestaurada.add(procesos.elementAt(s.readInt()));
+        }
+        s.close();
+        return c;
+    }
+
+    /**
+     * Llamado por un proceso antes de cada instrucción y cuando se
+     * interrumpe su espera. Si hay pausa, se detiene hasta que se reanude.
+     */
+    public synchronized void frontera(Proceso p) {
+        if (pausa) {
+            parados.add(p);
+            notifyAll();
+            while (pausa) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // interrupción de esta misma pausa; se ignora
+                }
+            }
+            parados.remove(p);
+        }
+        interrumpidos.remove(p);
+    }
+
+    /**
+     * Llamado por un proceso que va a bloquearse pidiendo un recurso.
+     * Si ya estaba formado (se interrumpió su espera), conserva su lugar.
+     */
+    public synchronized void esperando(Proceso p) {
+        esperando.add(p);
+        notifyAll();
+    }
+
+    /**
+     * Llamado por un proceso que obtuvo el recurso que esperaba.
+     * Limpia una interrupción que haya llegado después de obtenerlo.
+     */
+    public synchronized void obtuvo(Proceso p) {
+        esperando.remove(p);
+        interrumpidos.remove(p);
+        Thread.interrupted();
+    }
+
+    /**
+     * Llamado por un proceso que empieza a computar o una petición
+     * con límite; la pausa lo interrumpirá.
+     */
+    public synchronized void interrumpible(Proceso p) {
+        interrumpibles.add(p);
+    }
+
+    /**
+     * Llamado por un proceso que terminó de computar o su petición.
+     * Limpia una interrupción que haya llegado después de terminar.
+     */
+    public synchronized void noInterrumpible(Proceso p) {
+        interrumpibles.remove(p);
+        interrumpidos.remove(p);
+        Thread.interrupted();
+    }
+
+    private void interrumpe(HashSet<Proceso> procesos) {
+        for (Proceso p : procesos) {
+            if (!parados.contains(p) && interrumpidos.add(p)) {
+                p.interrupt();
+            }
+        }
+    }
+
+    private void escribe(DataOutputStream s) throws IOException {
+        s.writeInt(MAGIA);
+        s.writeByte(VERSION);
+        s.writeLong(posicion);
+        s.writeLong(logger.registrados.sum());
+
+        s.writeInt(recursos.size());
+        for (Recurso r : recursos) {
+            s.writeInt(r.t);
+        }
+
+        HashMap<Proceso, Integer> vivos = new HashMap<Proceso, Integer>();
+        for (Proceso p : procesos) {
+            if (p.tieneEstado()) {
+                vivos.put(p, vivos.size());
+            }
+        }
+        s.writeInt(vivos.size());
+        for (Proceso p : procesos) {
+            if (vivos.containsKey(p)) {
+                p.escribeEstado(s);
+            }
+        }
+
+        s.writeInt(esperando.size());
+        for (Proceso p : esperando) {
+            s.writeInt(vivos.get(p));
+        }
+    }
+
+    /**
+     * Verdadero si todos los procesos están detenidos o no están corriendo.
+     */
+    private boolean detenidos() {
+        for (Proceso p : procesos) {
+            if (p.isAlive() && !parados.contains(p)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean terminados() {
+        for (Proceso p : procesos) {
+            if (p.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,16 +1,26 @@
 package lectores_escritores;
 
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Wrapper para el semáforo.
  * Esta clase representa un recurso. Bloquea la ejecución de un proceso
  * cuando no se tiene el recurso requerido.
+ *
+ * También expone contadores para el monitoreo por JMX (`Monitor.java`).
+ * Son `LongAdder`, así que actualizarlos no serializa a los procesos
+ * y leerlos no toma ningún candado.
  */
-public class Recurso {
-    private Semaphore disponibilidad;
+public class Recurso implements RecursoMBean {
+    protected Semaphore disponibilidad;
     public int t;
 
+    private LongAdder esperando = new LongAdder();
+    private LongAdder poseedores = new LongAdder();
+    private LongAdder enUso = new LongAdder(); // permisos de los poseedores
+
     /**
      * Inicializa el semáforo con la cantidad de permisos especificados.
      * Debe haber tantos permisos como lectores haya.
@@ -36,6 +46,18 @@ public class Recurso {
         disponibilidad.acquire(t);
     }
 
+    /**
+     * Intenta pedir `permisos` permisos al semáforo, esperando como
+     * máximo `limite` ms (0 para no esperar).
+     * Regresa verdadero si los obtuvo.
+     */
+    public boolean intentaPide(int permisos, long limite) throws Exception {
+        if (limite <= 0) {
+            return disponibilidad.tryAcquire(permisos);
+        }
+        return disponibilidad.tryAcquire(permisos, limite, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Libera un permiso del semáforo.
      * Pensado para ser llamado por lectores.
@@ -51,4 +73,69 @@ public class Recurso {
     public void liberaTodos() {
         disponibilidad.release(t);
     }
+
+    /**
+     * Toma `permisos` permisos sin esperar y sin importar el hilo.
+     * La usa `PuntoControl.java` para devolver a los procesos restaurados
+     * los recursos que tenían; regresa falso si no hay suficientes.
+     */
+    public boolean reserva(int permisos) {
+        if (!disponibilidad.tryAcquire(permisos)) {
+            return false;
+        }
+        poseedores.increment();
+        enUso.add(permisos);
+        return true;
+    }
+
+    /**
+     * Registra que un proceso comenzó a esperar el recurso.
+     * Los contadores los actualiza `Proceso.java`, así cuentan igual
+     * para cualquier tipo de recurso.
+     */
+    public void comienzaEspera() {
+        esperando.increment();
+    }
+
+    /**
+     * Registra que un proceso dejó de esperar el recurso,
+     * obteniendo `permisos` permisos o no.
+     */
+    public void terminaEspera(boolean obtuvo, int permisos) {
+        esperando.decrement();
+        if (obtuvo) {
+            poseedores.increment();
+            enUso.add(permisos);
+        }
+    }
+
+    /**
+     * Registra que un proceso liberó `permisos` permisos del recurso.
+     */
+    public void registraLiberacion(int permisos) {
+        poseedores.decrement();
+        enUso.add(-permisos);
+    }
+
+    public int getPermisos() {
+        return t;
+    }
+
+    /**
+     * Se calcula con los permisos registrados de los poseedores y no con
+     * el semáforo: un lector de `RecursoSesgado.java` en el camino rápido
+     * no toma permisos del semáforo y `RecursoRemoto.java` no lo usa.
+     * En un shard solo cuenta a los procesos de ese shard.
+     */
+    public int getPermisosDisponibles() {
+        return (int) Math.max(0, t - enUso.sum());
+    }
+
+    public long getProcesosEsperando() {
+        return esperando.sum();
+    }
+
+    public long getPoseedores() {
+        return poseedores.sum();
+    }
 }
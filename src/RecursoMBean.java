@@ -0,0 +1,12 @@
+package lectores_escritores;
+
+/**
+ * Interfaz de monitoreo (JMX) de un recurso.
+ * Ver `Monitor.java`.
+ */
+public interface RecursoMBean {
+    public int getPermisos();
+    public int getPermisosDisponibles();
+    public long getProcesosEsperando();
+    public long getPoseedores();
+}
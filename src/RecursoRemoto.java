@@ -0,0 +1,46 @@
+package lectores_escritores;
+
+/**
+ * Recurso que vive en otra JVM (`ServidorRecursos.java`).
+ * Tiene la misma interfaz que `Recurso.java`, pero cada operación
+ * se envía al servidor a través de `ClienteRecursos.java`.
+ */
+public class RecursoRemoto extends Recurso {
+    private ClienteRecursos cliente;
+    private int indice;
+
+    /**
+     * `indice` es la posición del recurso en el servidor y
+     * `permisos` la cantidad total de permisos de su semáforo.
+     */
+    public RecursoRemoto(ClienteRecursos cliente, int indice, int permisos) {
+        super(permisos);
+        this.cliente = cliente;
+        this.indice = indice;
+    }
+
+    @Override
+    public void pide() throws Exception {
+        cliente.pide(indice, 1);
+    }
+
+    @Override
+    public void pideTodos() throws Exception {
+        cliente.pide(indice, t);
+    }
+
+    @Override
+    public boolean intentaPide(int permisos, long limite) throws Exception {
+        return cliente.intentaPide(indice, permisos, limite);
+    }
+
+    @Override
+    public void libera() {
+        cliente.libera(indice, 1);
+    }
+
+    @Override
+    public void liberaTodos() {
+        cliente.libera(indice, t);
+    }
+}
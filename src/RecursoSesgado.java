@@ -0,0 +1,177 @@
+package lectores_escritores;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Recurso con sesgo de lectura, al estilo BRAVO.
+ * Con muchos lectores, todos los `pide()`/`libera()` de `Recurso.java`
+ * compiten por la misma palabra de estado del semáforo. Aquí, mientras
+ * el sesgo está activo, cada lector solo incrementa un contador de una
+ * franja (elegida por su hilo y separada de las demás por relleno para
+ * no compartir línea de caché) y nunca toca el semáforo.
+ *
+ * Un escritor toma todos los permisos del semáforo como antes, quita el
+ * sesgo y espera a que todas las franjas queden en cero. Mientras el
+ * sesgo está desactivado, los lectores usan el semáforo (camino lento)
+ * y lo reactivan cuando pasa un tiempo proporcional a lo que tardó la
+ * última revocación, para que los escritores frecuentes no paguen
+ * revocaciones continuas.
+ *
+ * Consideraciones:
+ *    - Los lectores del camino rápido no consumen permisos; como hay
+ *      tantos permisos como lectores, eso no cambia qué lectores pueden
+ *      entrar juntos.
+ *    - Un lector debe liberar el recurso desde el mismo hilo que lo pidió
+ *      (así lo hace `Proceso.java`; el servidor de recursos no, por eso
+ *      no se permite ahí).
+ *    - Una petición con límite de un escritor espera a los lectores del
+ *      camino rápido solo hasta su límite; si no salen, devuelve los
+ *      permisos y reactiva el sesgo.
+ */
+public class RecursoSesgado extends Recurso {
+    private static final int RELLENO = 16; // 16 longs = 128 bytes por franja
+    private static final int MULTIPLICADOR_INHIBICION = 9;
+    private static final int VUELTAS = 64;
+    private static final long MAX_DORMIR_NS = 1_000_000;
+
+    private AtomicLongArray franjas;
+    private int mascara;
+    private volatile boolean sesgo = true;
+    private volatile long inhibidoHasta = 0;
+
+    // lecturas que el hilo tiene por el camino rápido
+    private ThreadLocal<int[]> rapidas = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Inicializa el semáforo y dos franjas por cada núcleo disponible,
+     * redondeado a potencia de dos.
+     */
+    public RecursoSesgado(int permisos) {
+        super(permisos);
+        int n = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        franjas = new AtomicLongArray(n * RELLENO);
+        mascara = n - 1;
+    }
+
+    @Override
+    public void pide() throws Exception {
+        if (!pideRapido()) {
+            disponibilidad.acquire();
+            reactivaSesgo();
+        }
+    }
+
+    @Override
+    public void pideTodos() throws Exception {
+        disponibilidad.acquire(t);
+        revoca(Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean intentaPide(int permisos, long limite) throws Exception {
+        if (permisos < t && pideRapido()) {
+            return true;
+        }
+
+        long fin = System.nanoTime() + Math.max(limite, 0) * 1_000_000;
+        if (!super.intentaPide(permisos, limite)) {
+            return false;
+        }
+        if (permisos < t) {
+            reactivaSesgo();
+            return true;
+        }
+
+        // los lectores del camino rápido deben salir antes del límite
+        if (!revoca(fin)) {
+            sesgo = true;
+            disponibilidad.release(t);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void libera() {
+        int[] r = rapidas.get();
+        if (r[0] > 0) {
+            r[0]--;
+            franjas.decrementAndGet(franja());
+        } else {
+            disponibilidad.release();
+        }
+    }
+
+    /**
+     * Intenta entrar como lector sin tocar el semáforo.
+     */
+    private boolean pideRapido() {
+        if (!sesgo) {
+            return false;
+        }
+
+        int f = franja();
+        franjas.incrementAndGet(f);
+        if (sesgo) {
+            rapidas.get()[0]++;
+            return true;
+        }
+
+        // un escritor quitó el sesgo entre la revisión y el incremento
+        franjas.decrementAndGet(f);
+        return false;
+    }
+
+    /**
+     * Quita el sesgo y espera a que salgan los lectores del camino rápido,
+     * como máximo hasta `fin` (en `System.nanoTime()`).
+     * Se llama con todos los permisos del semáforo tomados.
+     * Regresa falso si se llegó a `fin` con lectores dentro; en ese caso
+     * el sesgo queda desactivado y quien llama debe reactivarlo.
+     */
+    private boolean revoca(long fin) {
+        if (!sesgo) {
+            return true;
+        }
+
+        long inicio = System.nanoTime();
+        sesgo = false;
+        for (int i = 0; i <= mascara; ++i) {
+            int vueltas = 0;
+            long dormir = 10_000;
+            while (franjas.get(i * RELLENO) != 0) {
+                // gira un poco y luego duerme, cada vez más, hasta el límite
+                if (++vueltas < VUELTAS) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long resta = fin - System.nanoTime();
+                if (resta <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(Math.min(dormir, resta));
+                dormir = Math.min(dormir * 2, MAX_DORMIR_NS);
+            }
+        }
+        long ahora = System.nanoTime();
+        inhibidoHasta = ahora + (ahora - inicio) * MULTIPLICADOR_INHIBICION;
+        return true;
+    }
+
+    /**
+     * Reactiva el sesgo si ya pasó el tiempo de inhibición.
+     * Solo la llama un lector que tiene un permiso del semáforo, así que
+     * ningún escritor tiene el recurso en ese momento.
+     */
+    private void reactivaSesgo() {
+        if (!sesgo && System.nanoTime() >= inhibidoHasta) {
+            sesgo = true;
+        }
+    }
+
+    private int franja() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 40 & mascara) * RELLENO;
+    }
+}
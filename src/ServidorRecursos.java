@@ -0,0 +1,250 @@
+package lectores_escritores;
+
+import java.io.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Dueño de los recursos cuando la simulación se reparte entre varias JVM.
+ * Cada shard (`ClienteRecursos.java`) se conecta, pide y libera permisos
+ * con el protocolo de `Protocolo.java` y al terminar envía sus eventos,
+ * que aquí se juntan en una sola línea de tiempo.
+ *
+ * Los PIDE pueden bloquear, así que se atienden en un pool de hilos y
+ * su respuesta se encola; un hilo escritor por conexión envía las
+ * respuestas acumuladas en un solo bloque.
+ */
+public class ServidorRecursos {
+    private String direccion;
+    private Vector<Recurso> recursos;
+    private int shards;
+    private ExecutorService bloqueantes;
+
+    public Vector<Evento> eventos;
+
+    /**
+     * Construye un servidor que esperará a `shards` conexiones en `direccion`.
+     */
+    public ServidorRecursos(String direccion, Vector<Recurso> recursos, int shards) {
+        this.direccion = direccion;
+        this.recursos = recursos;
+        this.shards = shards;
+        eventos = new Vector<Evento>();
+    }
+
+    /**
+     * Espera a que todos los shards se conecten, les indica el tiempo
+     * inicial común y atiende sus peticiones hasta que todos envían
+     * sus eventos.
+     * Al terminar, `eventos` contiene todos los eventos ordenados por tiempo.
+     */
+    public void atiende() throws Exception {
+        ServerSocketChannel servidor = Protocolo.escucha(direccion);
+        bloqueantes = Executors.newCachedThreadPool();
+
+        System.out.println("Esperando " + shards + " shards en " + direccion);
+
+        Vector<SocketChannel> canales = new Vector<SocketChannel>();
+        for (int i = 0; i < shards; ++i) {
+            SocketChannel c = servidor.accept();
+            Protocolo.configura(c);
+            canales.add(c);
+        }
+
+        // todos los shards comparten el mismo inicio de tiempo
+        long inicio = System.currentTimeMillis();
+
+        Vector<Thread> hilos = new Vector<Thread>();
+        for (SocketChannel c : canales) {
+            Thread h = new Thread(new Conexion(c, inicio));
+            h.start();
+            hilos.add(h);
+        }
+
+        for (Thread h : hilos) {
+            h.join();
+        }
+
+        bloqueantes.shutdown();
+        servidor.close();
+        if (!direccion.chars().allMatch(Character::isDigit)) {
+            Files.deleteIfExists(Path.of(direccion));
+        }
+
+        // ordenamiento estable: los eventos de cada shard ya vienen en orden
+        Collections.sort(eventos, Comparator.comparingLong((Evento e) -> e.tiempoEjecucion));
+    }
+
+    private void pide(int r, int permisos) throws Exception {
+        Recurso recurso = recursos.elementAt(r);
+        recurso.comienzaEspera();
+        if (permisos == recurso.t) {
+            recurso.pideTodos();
+        } else {
+            recurso.pide();
+        }
+        recurso.terminaEspera(true, permisos);
+    }
+
+    private boolean intentaPide(int r, int permisos, long limite) throws Exception {
+        Recurso recurso = recursos.elementAt(r);
+        recurso.comienzaEspera();
+        boolean obtuvo = recurso.intentaPide(permisos, limite);
+        recurso.terminaEspera(obtuvo, permisos);
+        return obtuvo;
+    }
+
+    private void libera(int r, int permisos) {
+        Recurso recurso = recursos.elementAt(r);
+        if (permisos == recurso.t) {
+            recurso.liberaTodos();
+        } else {
+            recurso.libera();
+        }
+        recurso.registraLiberacion(permisos);
+    }
+
+    /**
+     * Atiende a un shard.
+     */
+    private class Conexion implements Runnable {
+        private SocketChannel canal;
+        private long inicio;
+        private LinkedBlockingQueue<Integer> respuestas;
+
+        Conexion(SocketChannel canal, long inicio) {
+            this.canal = canal;
+            this.inicio = inicio;
+            respuestas = new LinkedBlockingQueue<Integer>();
+        }
+
+        /**
+         * Atiende las peticiones del shard hasta que envía sus eventos.
+         * Una operación desconocida cierra la conexión: el resto del flujo
+         * ya no se puede interpretar.
+         */
+        public void run() {
+            Thread escritor = null;
+            try {
+                DataInputStream entrada = Protocolo.entrada(canal);
+                DataOutputStream salida = Protocolo.salida(canal);
+
+                salida.writeLong(inicio);
+                salida.writeInt(recursos.size());
+                for (Recurso r : recursos) {
+                    salida.writeInt(r.t);
+                }
+                salida.flush();
+
+                escritor = new Thread(() -> escribe(salida));
+                escritor.start();
+
+                boolean activo = true;
+                while (activo) {
+                    byte op = entrada.readByte();
+                    switch (op) {
+                        case Protocolo.PIDE: {
+                            int id = entrada.readInt();
+                            int r = entrada.readInt();
+                            int permisos = entrada.readInt();
+                            bloqueantes.submit(() -> {
+                                try {
+                                    pide(r, permisos);
+                                    respuestas.add(id);
+                                } catch (Exception e) {
+                                    System.out.println("Error: " + e.getMessage());
+                                    respuestas.add(-id - 1);
+                                }
+                            });
+                            break;
+                        }
+
+                        case Protocolo.INTENTA: {
+                            int id = entrada.readInt();
+                            int r = entrada.readInt();
+                            int permisos = entrada.readInt();
+                            int limite = entrada.readInt();
+                            bloqueantes.submit(() -> {
+                                try {
+                                    boolean ok = intentaPide(r, permisos, limite);
+                                    respuestas.add(ok ? id : -id - 1);
+                                } catch (Exception e) {
+                                    System.out.println("Error: " + e.getMessage());
+                                    respuestas.add(-id - 1);
+                                }
+                            });
+                            break;
+                        }
+
+                        case Protocolo.LIBERA: {
+                            entrada.readInt(); // id, no se usa
+                            int r = entrada.readInt();
+                            libera(r, entrada.readInt());
+                            break;
+                        }
+
+                        case Protocolo.EVENTOS: {
+                            int n = entrada.readInt();
+                            for (int i = 0; i < n; ++i) {
+                                eventos.add(Evento.lee(entrada));
+                            }
+                            activo = false;
+                            break;
+                        }
+
+                        default:
+                            throw new IOException("Operación desconocida: " + op);
+                    }
+                }
+            } catch (Exception e) {
+                System.out.println("Error en conexión: " + e.getMessage());
+            } finally {
+                respuestas.add(Integer.MIN_VALUE); // detiene al escritor
+                try {
+                    if (escritor != null) {
+                        escritor.join();
+                    }
+                    canal.close();
+                } catch (Exception e) {
+                    System.out.println("Error cerrando conexión: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Envía las respuestas en bloques: toma todas las que se hayan
+         * acumulado y hace un solo flush.
+         */
+        private void escribe(DataOutputStream salida) {
+            Vector<Integer> bloque = new Vector<Integer>();
+            try {
+                while (true) {
+                    bloque.add(respuestas.take());
+                    respuestas.drainTo(bloque);
+
+                    for (int id : bloque) {
+                        if (id == Integer.MIN_VALUE) {
+                            salida.flush();
+                            return;
+                        }
+                        // los ids negativos son INTENTA negados
+                        salida.writeByte(id >= 0 ? Protocolo.LISTO : Protocolo.NEGADO);
+                        salida.writeInt(id >= 0 ? id : -id - 1);
+                    }
+                    salida.flush();
+                    bloque.clear();
+                }
+            } catch (Exception e) {
+                System.out.println("Error en conexión: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package lectores_escritores;
+
+/**
+ * Interfaz de monitoreo (JMX) de la simulación completa.
+ * Ver `Monitor.java`.
+ */
+public interface SimulacionMBean {
+    public int getProcesosComputando();
+    public int getProcesosEsperando();
+    public int getProcesosTerminados();
+    public String[] getEstadoProcesos();
+    public long getInstruccionesEjecutadas();
+    public double getInstruccionesPorSegundo();
+    public long getEventosRegistrados();
+}
@@ -1,21 +1,87 @@
 package lectores_escritores;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Vector;
 
+/**
+ * Punto de entrada de la simulación.
+ *
+ * Modos:
+ *    - Sin argumentos: ejecuta la simulación en esta JVM.
+ *    - --verifica: explora todos los entrelazamientos (`Verificador.java`).
+ *    - --servidor <dirección> <shards>: es dueño de los recursos y junta
+ *      los eventos de los shards (`ServidorRecursos.java`).
+ *    - --shard <dirección> <i> <shards>: ejecuta los procesos cuyo índice
+ *      módulo <shards> es <i>, con los recursos del servidor.
+ *    - --restaura <archivo>: continúa la simulación desde un punto de
+ *      control (`PuntoControl.java`) en vez de leer los procesos.
+ *    - --benchmark: mide cada etapa en escenarios generados (`Benchmark.java`).
+ *      Opciones: --escenarios <nombre,...> (todos), --base <archivo>
+ *      (compara contra la base; el proceso sale con 1 si hay regresiones),
+ *      --guarda-base <archivo> y --tolerancia <%> (25).
+ *
+ * La dirección es un puerto TCP en loopback o la ruta de un socket Unix.
+ *
+ * Opciones (en cualquier modo que ejecute procesos):
+ *    - --nucleos <n>: computa en n núcleos simulados (`Planificador.java`).
+ *    - --politica <fifo|rr|prioridad>: política de planificación (fifo).
+ *    - --quantum <ms>: quantum de round-robin (5).
+ *    - --sesgo-lectura: usa recursos con sesgo de lectura (`RecursoSesgado.java`);
+ *      no en --servidor, donde el pide y el libera de un lector llegan
+ *      en hilos distintos.
+ *    - --jmx: expone el estado de la simulación por JMX (`Monitor.java`).
+ *    - --detalle <exacto|agregado>: fuerza el modo de dibujo de la gráfica;
+ *      por omisión se elige según la cantidad de eventos (`Graficador.java`).
+ *    - --traza <archivo>: exporta los eventos en formato Trace Event de
+ *      Chrome (`ExportadorTraza.java`).
+ *    - --analiza: reporta la ruta crítica y qué retenciones de recursos
+ *      causaron más bloqueo (`AnalizadorBloqueos.java`).
+ *    - --punto-control <archivo>: guarda un punto de control cada
+ *      --cada <ms> (1000); solo sin shards ni --sesgo-lectura.
+ */
 public class Simulador {
     static public void main(String[] argv) {
+        String modo = argv.length > 0 ? argv[0] : "";
+
+        if (modo.equals("--benchmark")) {
+            benchmark(argv);
+            return;
+        }
+
+        String detalle = opcion(argv, "--detalle", null);
+        if (detalle != null && !detalle.equals("exacto") && !detalle.equals("agregado")) {
+            System.out.println("--detalle debe ser exacto o agregado.");
+            return;
+        }
+
         Vector<Proceso> procesos = new Vector<Proceso>();
         Vector<Recurso> recursos = new Vector<Recurso>();
         Logger logger = new Logger();
+        PuntoControl control = null;
 
-        // inicialización de procesos
-        try {
-            procesos.add(new Proceso("./procesos/a1.txt", "A0", recursos, logger));
-            procesos.add(new Proceso("./procesos/a2.txt", "A1", recursos, logger));
-            procesos.add(new Proceso("./procesos/a3.txt", "A2", recursos, logger));
-        } catch (Exception e) {
-            System.out.println("Error leyendo archivos: " + e.getMessage());
-            return;
+        // restauración: los procesos y recursos vienen del punto de control
+        if (modo.equals("--restaura")) {
+            try {
+                control = PuntoControl.restaura(argv[1], logger);
+                procesos = control.procesos;
+                recursos = control.recursos;
+            } catch (Exception e) {
+                System.out.println("Error restaurando: " + e.getMessage());
+                return;
+            }
+        } else {
+            // inicialización de procesos
+            try {
+                procesos.add(new Proceso("./procesos/a1.txt", "A0", recursos, logger));
+                procesos.add(new Proceso("./procesos/a2.txt", "A1", recursos, logger));
+                procesos.add(new Proceso("./procesos/a3.txt", "A2", recursos, logger));
+            } catch (Exception e) {
+                System.out.println("Error leyendo archivos: " + e.getMessage());
+                return;
+            }
         }
 
         // permisos equivalentes a la cantidad de lectores
@@ -31,15 +97,166 @@ public class Simulador {
             permisos = 1;
         }
 
-        // agrega un solo recurso
-        recursos.add(new Recurso(permisos));
+        if (control != null) {
+            permisos = recursos.elementAt(0).t;
+        }
 
-        System.out.println("");
-        logger.tiempo(); // inicia tiempo de logger
+        // modo shard: los recursos los da el servidor
+        if (modo.equals("--shard")) {
+            try {
+                ClienteRecursos cliente = new ClienteRecursos(argv[1]);
+                for (int r = 0; r < cliente.permisos.length; ++r) {
+                    recursos.add(new RecursoRemoto(cliente, r, cliente.permisos[r]));
+                }
+
+                int i = Integer.parseInt(argv[2]),
+                    n = Integer.parseInt(argv[3]);
+                Vector<Proceso> propios = new Vector<Proceso>();
+                for (int p = 0; p < procesos.size(); ++p) {
+                    if (p % n == i) {
+                        propios.add(procesos.elementAt(p));
+                    }
+                }
+
+                if (bandera(argv, "--jmx")) {
+                    monitorea(propios, recursos, logger);
+                }
+
+                logger.tiempo(cliente.tiempoInicial);
+                ejecuta(propios, planificador(argv), null);
+                cliente.termina(logger.eventos);
+            } catch (Exception e) {
+                System.out.println("Error en shard: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (modo.equals("--servidor") && bandera(argv, "--sesgo-lectura")) {
+            System.out.println("El servidor no funciona con --sesgo-lectura.");
+            return;
+        }
+
+        // agrega un solo recurso (al restaurar ya vienen del punto de control)
+        if (control == null) {
+            if (bandera(argv, "--sesgo-lectura")) {
+                recursos.add(new RecursoSesgado(permisos));
+            } else {
+                recursos.add(new Recurso(permisos));
+            }
+        }
+
+        // modo de verificación: explora todos los entrelazamientos sin ejecutar
+        if (modo.equals("--verifica")) {
+            try {
+                Verificador v = new Verificador(procesos, recursos);
+                v.verifica();
+                v.reporta();
+            } catch (Exception e) {
+                System.out.println("Error verificando: " + e.getMessage());
+            }
+            return;
+        }
+
+        if (bandera(argv, "--jmx")) {
+            monitorea(procesos, recursos, logger);
+        }
+
+        Vector<Evento> eventos;
+
+        if (modo.equals("--servidor")) {
+            try {
+                ServidorRecursos s = new ServidorRecursos(
+                    argv[1],
+                    recursos,
+                    Integer.parseInt(argv[2]));
+                s.atiende();
+                eventos = s.eventos;
+            } catch (Exception e) {
+                System.out.println("Error en servidor: " + e.getMessage());
+                return;
+            }
+        } else {
+            String archivo = opcion(argv, "--punto-control", null);
+            if (archivo != null && bandera(argv, "--sesgo-lectura")) {
+                System.out.println("Los puntos de control no funcionan con --sesgo-lectura.");
+                return;
+            }
+            long cada = Long.parseLong(opcion(argv, "--cada", "1000"));
+            if (archivo != null && cada < 1) {
+                System.out.println("--cada debe ser al menos 1.");
+                return;
+            }
+            if (archivo != null && control == null) {
+                control = new PuntoControl(procesos, recursos, logger);
+            }
+
+            System.out.println("");
+            logger.tiempo(); // inicia tiempo de logger
+            if (control != null && archivo != null) {
+                control.periodico(archivo, cada);
+            }
+            ejecuta(procesos, planificador(argv), control);
+            eventos = logger.eventos;
+        }
+
+        System.out.println("\nSimulación terminada.");
+
+        Estadisticas est = new Estadisticas();
+        est.agregaTodos(eventos);
+        est.reporta();
+
+        if (bandera(argv, "--analiza")) {
+            AnalizadorBloqueos a = new AnalizadorBloqueos(eventos);
+            a.analiza();
+            a.reporta(10);
+        }
+
+        String traza = opcion(argv, "--traza", null);
+        if (traza != null) {
+            try {
+                ExportadorTraza x = new ExportadorTraza(
+                    new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(traza), StandardCharsets.UTF_8)),
+                    recursos);
+                x.agregaTodos(eventos);
+                x.cierra();
+            } catch (Exception e) {
+                System.out.println("Error exportando traza: " + e.getMessage());
+            }
+        }
+
+        Graficador g = new Graficador(800);
+        if (detalle != null) {
+            g.modoExacto(detalle.equals("exacto"));
+        }
+        g.grafica(eventos, procesos, permisos);
+    }
+
+    /**
+     * Inicia los procesos y espera a que todos terminen.
+     * Si hay planificador, los procesos computan en sus núcleos.
+     * Si hay punto de control, él los inicia (ver `PuntoControl.inicia()`).
+     */
+    static private void ejecuta(Vector<Proceso> procesos, Planificador planificador,
+                                PuntoControl control) {
+        if (planificador != null) {
+            planificador.inicia();
+            for (Proceso p : procesos) {
+                p.asignaPlanificador(planificador);
+            }
+        }
 
         // inicia procesos
-        for (Proceso p : procesos) {
-            p.start();
+        if (control != null) {
+            try {
+                control.inicia();
+            } catch (InterruptedException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        } else {
+            for (Proceso p : procesos) {
+                p.start();
+            }
         }
 
         // estar pendiente cuando acabe la simulación
@@ -54,8 +271,112 @@ public class Simulador {
             if (vivo == 0) { break; }
         }
 
-        System.out.println("\nSimulación terminada.");
-        Graficador g = new Graficador(800);
-        g.grafica(logger.eventos, procesos, permisos);
+        if (planificador != null) {
+            planificador.reporta();
+        }
+    }
+
+    /**
+     * Ejecuta el benchmark con los escenarios indicados en las opciones
+     * y lo compara o guarda como base.
+     */
+    static private void benchmark(String[] argv) {
+        int regresiones = 0;
+        try {
+            Benchmark b = new Benchmark(opcion(argv, "--escenarios", null));
+            b.ejecuta();
+            b.reporta();
+
+            String base = opcion(argv, "--base", null);
+            if (base != null) {
+                regresiones = b.compara(
+                    base,
+                    Double.parseDouble(opcion(argv, "--tolerancia", "25")) / 100);
+            }
+
+            String guarda = opcion(argv, "--guarda-base", null);
+            if (guarda != null) {
+                b.guarda(guarda);
+            }
+        } catch (Exception e) {
+            System.out.println("Error en benchmark: " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.exit(regresiones > 0 ? 1 : 0);
+    }
+
+    /**
+     * Registra los MBeans de monitoreo. Un error aquí no detiene la simulación.
+     */
+    static private void monitorea(Vector<Proceso> procesos, Vector<Recurso> recursos, Logger logger) {
+        try {
+            new Monitor(procesos, recursos, logger).registra();
+        } catch (Exception e) {
+            System.out.println("Error registrando MBeans: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Construye el planificador indicado por las opciones, o regresa null
+     * si no se pidió `--nucleos`. Termina el programa si la política no
+     * existe o si los núcleos o el quantum no son positivos.
+     */
+    static private Planificador planificador(String[] argv) {
+        String nucleos = opcion(argv, "--nucleos", null);
+        if (nucleos == null) {
+            return null;
+        }
+
+        Politica politica;
+        switch (opcion(argv, "--politica", "fifo")) {
+            case "rr":
+                politica = Politica.ROUND_ROBIN;
+                break;
+            case "prioridad":
+                politica = Politica.PRIORIDAD;
+                break;
+            case "fifo":
+                politica = Politica.FIFO;
+                break;
+            default:
+                System.out.println("--politica debe ser fifo, rr o prioridad.");
+                System.exit(1);
+                return null;
+        }
+
+        int n = Integer.parseInt(nucleos),
+            quantum = Integer.parseInt(opcion(argv, "--quantum", "5"));
+        if (n < 1 || quantum < 1) {
+            System.out.println("--nucleos y --quantum deben ser al menos 1.");
+            System.exit(1);
+        }
+
+        return new Planificador(n, politica, quantum);
+    }
+
+    /**
+     * Regresa verdadero si `nombre` está en los argumentos.
+     */
+    static private boolean bandera(String[] argv, String nombre) {
+        for (String a : argv) {
+            if (a.equals(nombre)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Regresa el valor que sigue a `nombre` en los argumentos,
+     * o `defecto` si no está.
+     */
+    static private String opcion(String[] argv, String nombre, String defecto) {
+        for (int i = 0; i < argv.length - 1; ++i) {
+            if (argv[i].equals(nombre)) {
+                return argv[i + 1];
+            }
+        }
+        return defecto;
     }
 }
@@ -6,4 +6,8 @@ package lectores_escritores;
 public enum TipoEvento {
     COMPUTAR,
     TERMINAR,
+    PEDIR,
+    OBTENER,
+    LIBERAR,
+    TIEMPO_AGOTADO,
 }
@@ -0,0 +1,474 @@
+package lectores_escritores;
+
+import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Verificador exhaustivo del espacio de estados de una simulación.
+ * En vez de ejecutar los procesos y esperar que ocurra un deadlock,
+ * explora todos los entrelazamientos posibles de sus instrucciones
+ * REQUIRE/FREE contra la semántica de permisos de `Recurso.java`.
+ *
+ * Consideraciones:
+ *    - Un estado es únicamente el contador de programa de cada proceso:
+ *      los permisos disponibles de cada recurso se deducen de él, porque
+ *      los programas no tienen saltos.
+ *    - COMPUTE y HALT no afectan a los recursos, así que se saltan.
+ *    - TRY_REQUIRE y TIMED_REQUIRE se tratan como REQUIRE: se reportan
+ *      los deadlocks que ocurrirían si las peticiones esperaran sin límite.
+ *    - Los estados se empaquetan en un `long` (máximo 63 bits entre todos
+ *      los contadores de programa).
+ *    - Reducción de orden parcial: si algún proceso tiene un FREE pendiente,
+ *      solo se expande ese paso. Un FREE siempre está habilitado, no
+ *      deshabilita a nadie y tiene que ejecutarse antes de cualquier deadlock,
+ *      así que no se pierden deadlocks ni se alarga la traza más corta.
+ *    - La búsqueda es en anchura, por niveles, repartiendo la frontera entre
+ *      los núcleos con un `ForkJoinPool` (que hace robo de trabajo).
+ *      Por ser en anchura, la traza encontrada es la más corta.
+ *    - La tabla de visitados crece según los estados que de verdad tiene,
+ *      no según el peor caso: cada nivel se expande en bloques que caben
+ *      en la tabla aunque cada estado tuviera `n` sucesores, y entre
+ *      bloques la tabla se duplica solo cuando está por llegar a carga 1/2.
+ */
+public class Verificador {
+    private static final int UMBRAL_DIVISION = 1024;
+
+    private int n; // número de procesos
+    private Vector<Proceso> procesos;
+
+    // programa de cada proceso, solo con REQUIRE/FREE
+    private boolean[][] pidePaso;
+    private int[][] recursoPaso;
+    private int[][] cantidadPaso;
+    // permisos retenidos por el proceso antes de cada paso, por recurso
+    private int[][][] retenidos;
+    private int[] permisosIniciales;
+
+    private int[] bits, desplazamiento;
+    private long guarda;
+
+    private TablaEstados visitados;
+    private AtomicLong bloqueo;
+
+    public long estados = 0;
+    public int profundidad = 0;
+    public Vector<String> traza, bloqueados;
+
+    /**
+     * Construye un verificador para los procesos y recursos dados.
+     * Lanza una excepción si algún proceso usa un recurso inexistente
+     * o si los estados no caben en 63 bits.
+     */
+    public Verificador(Vector<Proceso> procesos, Vector<Recurso> recursos) throws Exception {
+        this.procesos = procesos;
+        n = procesos.size();
+        traza = new Vector<String>();
+        bloqueados = new Vector<String>();
+
+        permisosIniciales = new int[recursos.size()];
+        for (int r = 0; r < recursos.size(); ++r) {
+            permisosIniciales[r] = recursos.elementAt(r).t;
+        }
+
+        pidePaso = new boolean[n][];
+        recursoPaso = new int[n][];
+        cantidadPaso = new int[n][];
+        retenidos = new int[n][][];
+        bits = new int[n];
+        desplazamiento = new int[n];
+
+        int totalBits = 0;
+        for (int p = 0; p < n; ++p) {
+            Proceso proc = procesos.elementAt(p);
+            Vector<Comando> pasos = new Vector<Comando>();
+            for (Comando c : proc.instrucciones()) {
+                if (c.tipo != Cmd.COMPUTE && c.tipo != Cmd.HALT) {
+                    if (c.valor < 0 || c.valor >= permisosIniciales.length) {
+                        throw new Exception(
+                            "P(" + proc.nombre + ") usa el recurso inexistente " + c.valor + ".");
+                    }
+                    pasos.add(c);
+                }
+            }
+
+            int len = pasos.size();
+            pidePaso[p] = new boolean[len];
+            recursoPaso[p] = new int[len];
+            cantidadPaso[p] = new int[len];
+            retenidos[p] = new int[len + 1][permisosIniciales.length];
+
+            for (int i = 0; i < len; ++i) {
+                Comando c = pasos.elementAt(i);
+                pidePaso[p][i] = c.tipo != Cmd.FREE;
+                recursoPaso[p][i] = c.valor;
+                cantidadPaso[p][i] = proc.tipo == TipoProceso.ESCRITOR
+                    ? permisosIniciales[c.valor]
+                    : 1;
+
+                retenidos[p][i + 1] = retenidos[p][i].clone();
+                retenidos[p][i + 1][c.valor] += pidePaso[p][i]
+                    ? cantidadPaso[p][i]
+                    : -cantidadPaso[p][i];
+            }
+
+            bits[p] = 64 - Long.numberOfLeadingZeros(len);
+            desplazamiento[p] = totalBits;
+            totalBits += bits[p];
+        }
+
+        if (totalBits > 63) {
+            throw new Exception("El espacio de estados no cabe en 63 bits (" + totalBits + ").");
+        }
+        // bit extra para que ninguna clave sea 0 (casilla vacía en la tabla)
+        guarda = 1L << totalBits;
+    }
+
+    /**
+     * Explora todos los estados alcanzables.
+     * Regresa verdadero si el escenario está libre de deadlocks.
+     * Si no lo está, `traza` contiene la secuencia más corta de pasos
+     * que lleva a uno y `bloqueados` lo que espera cada proceso en él.
+     * Lanza una excepción si el espacio de estados no cabe en la tabla.
+     */
+    public boolean verifica() throws Exception {
+        visitados = new TablaEstados(1 << 16);
+        bloqueo = new AtomicLong(0);
+        traza.clear();
+        bloqueados.clear();
+
+        long inicial = codifica(new int[n]);
+        visitados.inserta(inicial, 0);
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long[] frontera = { inicial };
+        profundidad = 0;
+
+        while (frontera.length > 0 && bloqueo.get() == 0) {
+            ConcurrentLinkedQueue<long[]> siguientes = new ConcurrentLinkedQueue<long[]>();
+
+            // cada estado tiene a lo más n sucesores nuevos
+            int sucesores = Math.max(n, 1);
+            int desde = 0;
+            while (desde < frontera.length && bloqueo.get() == 0) {
+                long libres = visitados.ajusta(sucesores);
+                int hasta = (int) Math.min(frontera.length, desde + libres / sucesores);
+                pool.invoke(new Expansion(frontera, desde, hasta, siguientes));
+                desde = hasta;
+            }
+
+            int total = 0;
+            for (long[] b : siguientes) {
+                total += b.length;
+            }
+            frontera = new long[total];
+            int i = 0;
+            for (long[] b : siguientes) {
+                System.arraycopy(b, 0, frontera, i, b.length);
+                i += b.length;
+            }
+
+            if (frontera.length > 0 && bloqueo.get() == 0) {
+                profundidad++;
+            }
+        }
+
+        estados = visitados.tamano();
+
+        if (bloqueo.get() == 0) {
+            return true;
+        }
+
+        construyeTraza(bloqueo.get(), inicial);
+        return false;
+    }
+
+    /**
+     * Imprime el resultado de la última verificación.
+     */
+    public void reporta() {
+        System.out.println(String.format(
+            "Estados explorados: %d (profundidad %d)",
+            estados,
+            profundidad));
+
+        if (bloqueados.isEmpty()) {
+            System.out.println("No hay deadlocks alcanzables.");
+            return;
+        }
+
+        System.out.println("Deadlock alcanzable en " + traza.size() + " pasos:");
+        for (String paso : traza) {
+            System.out.println("    " + paso);
+        }
+        for (String b : bloqueados) {
+            System.out.println("    " + b);
+        }
+    }
+
+    /**
+     * Reconstruye la traza desde el estado de deadlock hasta el inicial,
+     * siguiendo los padres guardados en la tabla de visitados.
+     */
+    private void construyeTraza(long estado, long inicial) {
+        Vector<String> inversa = new Vector<String>();
+        int[] pcHijo = decodifica(estado);
+
+        while (estado != inicial) {
+            long padre = visitados.padre(estado);
+            int[] pcPadre = decodifica(padre);
+
+            for (int p = 0; p < n; ++p) {
+                if (pcPadre[p] != pcHijo[p]) {
+                    int i = pcPadre[p];
+                    inversa.add(String.format(
+                        "P(%s): %s %d",
+                        procesos.elementAt(p).nombre,
+                        pidePaso[p][i] ? "REQUIRE" : "FREE",
+                        recursoPaso[p][i]));
+                    break;
+                }
+            }
+
+            estado = padre;
+            pcHijo = pcPadre;
+        }
+
+        for (int i = inversa.size() - 1; i >= 0; --i) {
+            traza.add(inversa.elementAt(i));
+        }
+
+        int[] pcFinal = decodifica(bloqueo.get());
+        for (int p = 0; p < n; ++p) {
+            if (pcFinal[p] < pidePaso[p].length) {
+                bloqueados.add(String.format(
+                    "P(%s): bloqueado en REQUIRE %d",
+                    procesos.elementAt(p).nombre,
+                    recursoPaso[p][pcFinal[p]]));
+            }
+        }
+    }
+
+    /**
+     * Calcula los sucesores de `estado` y los agrega a `salida`
+     * si no se habían visitado.
+     * Marca el deadlock si el estado no tiene sucesores y no todos
+     * los procesos han terminado.
+     */
+    private void expande(long estado, ArregloLong salida) {
+        int[] pc = decodifica(estado);
+        int[] disponibles = permisosIniciales.clone();
+        boolean terminado = true;
+
+        for (int p = 0; p < n; ++p) {
+            int[] ret = retenidos[p][pc[p]];
+            for (int r = 0; r < disponibles.length; ++r) {
+                disponibles[r] -= ret[r];
+            }
+            if (pc[p] < pidePaso[p].length) {
+                terminado = false;
+            }
+        }
+
+        // reducción de orden parcial: un FREE pendiente basta
+        for (int p = 0; p < n; ++p) {
+            if (pc[p] < pidePaso[p].length && !pidePaso[p][pc[p]]) {
+                visita(estado, avanza(estado, p, pc[p]), salida);
+                return;
+            }
+        }
+
+        boolean habilitado = false;
+        for (int p = 0; p < n; ++p) {
+            int i = pc[p];
+            if (i < pidePaso[p].length && disponibles[recursoPaso[p][i]] >= cantidadPaso[p][i]) {
+                habilitado = true;
+                visita(estado, avanza(estado, p, i), salida);
+            }
+        }
+
+        if (!habilitado && !terminado) {
+            bloqueo.compareAndSet(0, estado);
+        }
+    }
+
+    private void visita(long padre, long hijo, ArregloLong salida) {
+        if (visitados.inserta(hijo, padre)) {
+            salida.agrega(hijo);
+        }
+    }
+
+    private long avanza(long estado, int p, int pc) {
+        long mascara = ((1L << bits[p]) - 1) << desplazamiento[p];
+        return (estado & ~mascara) | ((long) (pc + 1) << desplazamiento[p]);
+    }
+
+    private long codifica(int[] pc) {
+        long e = guarda;
+        for (int p = 0; p < n; ++p) {
+            e |= (long) pc[p] << desplazamiento[p];
+        }
+        return e;
+    }
+
+    private int[] decodifica(long estado) {
+        int[] pc = new int[n];
+        for (int p = 0; p < n; ++p) {
+            pc[p] = (int) ((estado >>> desplazamiento[p]) & ((1L << bits[p]) - 1));
+        }
+        return pc;
+    }
+
+    /**
+     * Tarea que expande un rango de la frontera.
+     * Se divide a la mitad hasta que el rango es pequeño;
+     * el pool reparte las mitades entre los núcleos.
+     */
+    private class Expansion extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private long[] frontera;
+        private int desde, hasta;
+        private ConcurrentLinkedQueue<long[]> salida;
+
+        Expansion(long[] frontera, int desde, int hasta, ConcurrentLinkedQueue<long[]> salida) {
+            this.frontera = frontera;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.salida = salida;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > UMBRAL_DIVISION) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(
+                    new Expansion(frontera, desde, medio, salida),
+                    new Expansion(frontera, medio, hasta, salida));
+                return;
+            }
+
+            ArregloLong local = new ArregloLong();
+            for (int i = desde; i < hasta; ++i) {
+                expande(frontera[i], local);
+            }
+            if (local.tamano > 0) {
+                salida.add(local.arreglo());
+            }
+        }
+    }
+}
+
+/**
+ * Conjunto de estados visitados con direccionamiento abierto.
+ * Guarda cada estado junto con su padre para reconstruir trazas.
+ * Las inserciones concurrentes usan CAS sobre la clave; el crecimiento
+ * solo ocurre entre bloques de inserciones (`ajusta`), cuando nadie
+ * está insertando.
+ */
+class TablaEstados {
+    private static final int MAXIMO = 1 << 30; // casillas, límite de AtomicLongArray
+
+    private AtomicLongArray claves, padres;
+    private int mascara;
+    private AtomicLong tamano;
+
+    public TablaEstados(int capacidad) {
+        claves = new AtomicLongArray(capacidad);
+        padres = new AtomicLongArray(capacidad);
+        mascara = capacidad - 1;
+        tamano = new AtomicLong(0);
+    }
+
+    public long tamano() {
+        return tamano.get();
+    }
+
+    /**
+     * Inserta `clave` si no existía. Regresa verdadero si la insertó.
+     * Siempre hay casillas libres si no se inserta más de lo que
+     * regresó `ajusta`: la carga queda en 1/2 o menos.
+     */
+    public boolean inserta(long clave, long padre) {
+        int i = indice(clave);
+        while (true) {
+            long actual = claves.get(i);
+            if (actual == clave) {
+                return false;
+            }
+            if (actual == 0) {
+                if (claves.compareAndSet(i, 0, clave)) {
+                    padres.set(i, padre);
+                    tamano.incrementAndGet();
+                    return true;
+                }
+                continue; // otro hilo ganó la casilla, revisarla de nuevo
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    public long padre(long clave) {
+        int i = indice(clave);
+        while (claves.get(i) != clave) {
+            i = (i + 1) & mascara;
+        }
+        return padres.get(i);
+    }
+
+    /**
+     * Duplica la tabla si antes de llegar a carga 1/2 le quedan menos de
+     * `minimo` casillas o menos de 1/64 de su capacidad, y regresa cuántas
+     * inserciones caben manteniendo la carga en 1/2 o menos.
+     * No debe llamarse mientras haya inserciones en curso.
+     * Lanza una excepción si necesitaría más de `MAXIMO` casillas.
+     */
+    public long ajusta(long minimo) throws Exception {
+        int capacidad = mascara + 1;
+        long estados = tamano.get();
+
+        long nueva = capacidad;
+        while ((nueva / 2 - estados < Math.max(minimo, nueva / 64)) && nueva < MAXIMO) {
+            nueva <<= 1;
+        }
+        if (nueva / 2 - estados < minimo) {
+            throw new Exception(
+                "El espacio de estados es demasiado grande: ya hay " + estados
+                + " estados y caben " + MAXIMO / 2 + ".");
+        }
+        if (nueva == capacidad) {
+            return nueva / 2 - estados;
+        }
+
+        AtomicLongArray viejasClaves = claves, viejosPadres = padres;
+        claves = new AtomicLongArray((int) nueva);
+        padres = new AtomicLongArray((int) nueva);
+        mascara = (int) nueva - 1;
+
+        for (int i = 0; i < capacidad; ++i) {
+            long c = viejasClaves.get(i);
+            if (c != 0) {
+                int j = indice(c);
+                while (claves.get(j) != 0) {
+                    j = (j + 1) & mascara;
+                }
+                claves.set(j, c);
+                padres.set(j, viejosPadres.get(i));
+            }
+        }
+        return nueva / 2 - estados;
+    }
+
+    private int indice(long clave) {
+        // mezclador de MurmurHash3
+        long h = clave;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mascara;
+    }
+}